@@ -0,0 +1,75 @@
+package ga.josejulio.annotation.processor.codemodel.toolkit;
+
+import com.sun.codemodel.JAnnotatable;
+import com.sun.codemodel.JAnnotationUse;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JType;
+
+import java.util.List;
+
+/**
+ * Annotations of an element, already converted to their code model values so they can be copied to any number of
+ * targets without looking at the annotation mirrors again.
+ * <p>
+ * Parameter values are one of {@link Number}, {@link String}, {@link JType}, {@link EnumConstant},
+ * {@link NestedAnnotation} or a {@link List} of those.
+ */
+class AnnotationCopyPlan {
+
+    static final AnnotationCopyPlan EMPTY = new AnnotationCopyPlan(List.of());
+
+    private final List<AnnotationCopy> annotations;
+
+    AnnotationCopyPlan(List<AnnotationCopy> annotations) {
+        this.annotations = annotations;
+    }
+
+    List<AnnotationCopy> getAnnotations() {
+        return annotations;
+    }
+
+    void apply(JAnnotatable target) {
+        for (AnnotationCopy annotation: annotations) {
+            writeParams(target.annotate(annotation.type()), annotation.params());
+        }
+    }
+
+    private static void writeParams(JAnnotationUse annotationUse, List<Param> params) {
+        for (Param param: params) {
+            writeValue(new AnnotationParamWriter(param.key(), annotationUse), param.value());
+        }
+    }
+
+    private static void writeValue(AnnotationParamWriter annotationParamWriter, Object value) {
+        if (value instanceof Number number) {
+            annotationParamWriter.writeNumber(number);
+        } else if (value instanceof String string) {
+            annotationParamWriter.writeString(string);
+        } else if (value instanceof JType jType) {
+            annotationParamWriter.writeJType(jType);
+        } else if (value instanceof EnumConstant enumConstant) {
+            annotationParamWriter.writeEnum(enumConstant.type(), enumConstant.name());
+        } else if (value instanceof NestedAnnotation nestedAnnotation) {
+            writeParams(annotationParamWriter.writeAnnotation(nestedAnnotation.type()), nestedAnnotation.params());
+        } else if (value instanceof List<?> values) {
+            AnnotationParamWriter arrayWriter = annotationParamWriter.writeArray();
+            for (Object arrayValue: values) {
+                writeValue(arrayWriter, arrayValue);
+            }
+        } else {
+            throw new UnsupportedOperationException("Unsupported annotation value:" + value);
+        }
+    }
+
+    record AnnotationCopy(JClass type, List<Param> params) {
+    }
+
+    record NestedAnnotation(JClass type, List<Param> params) {
+    }
+
+    record EnumConstant(JClass type, String name) {
+    }
+
+    record Param(String key, Object value) {
+    }
+}
@@ -3,6 +3,8 @@ package ga.josejulio.annotation.processor.codemodel.toolkit;
 import com.sun.codemodel.JAnnotationArrayMember;
 import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JExpression;
 import com.sun.codemodel.JType;
 
 class AnnotationParamWriter {
@@ -58,22 +60,34 @@ class AnnotationParamWriter {
     }
 
     public void writeJType(JType value) {
-        if (annotationUse != null) {
+        // Code model boxes primitive class literals and doesn't import the component type of array class literals
+        if (value.isPrimitive()) {
+            writeExpression(JExpr.dotclass(value.boxify().owner().directClass(value.name())));
+        } else if (value.isArray()) {
+            writeExpression(JExpr.dotclass((JClass) value));
+        } else if (annotationUse != null) {
             annotationUse.param(key, value);
         } else {
-            annotationArrayMember.annotate((JClass) value);
+            annotationArrayMember.param(value);
         }
     }
 
-    public JAnnotationUse writeClass(Class<? extends java.lang.annotation.Annotation> value) {
+    public JAnnotationUse writeAnnotation(JClass annotationClass) {
         if (annotationUse != null) {
-            return annotationUse.annotationParam(key, value);
+            // JAnnotationUse can only create nested annotations from a Class, borrow the one created by an array member
+            JAnnotationUse nested = annotationUse.paramArray(key).annotate(annotationClass);
+            annotationUse.param(key, nested);
+            return nested;
         } else {
-            return annotationArrayMember.annotate(value);
+            return annotationArrayMember.annotate(annotationClass);
         }
     }
 
-    public void writeEnum(Enum<?> value) {
+    public void writeEnum(JClass enumClass, String constant) {
+        writeExpression(enumClass.staticRef(constant));
+    }
+
+    private void writeExpression(JExpression value) {
         if (annotationUse != null) {
             annotationUse.param(key, value);
         } else {
@@ -4,18 +4,25 @@ import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JPackage;
 
 import javax.annotation.processing.Filer;
+import javax.lang.model.element.Element;
 import javax.tools.JavaFileObject;
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
-import java.util.HashMap;
 import java.util.Map;
 
 public class AnnotationProcessingCodeWriter extends CodeWriter {
     private final Filer filer;
-    private final Map<String, OutputStream> openedOutputStreams = new HashMap<>();
+    // Full class name -> element that caused its generation, used by incremental builds to track the generated files
+    private final Map<String, ? extends Element> originatingElements;
 
     public AnnotationProcessingCodeWriter(Filer filer) {
+        this(filer, Map.of());
+    }
+
+    public AnnotationProcessingCodeWriter(Filer filer, Map<String, ? extends Element> originatingElements) {
         this.filer = filer;
+        this.originatingElements = originatingElements;
     }
 
     @Override
@@ -24,22 +31,16 @@ public class AnnotationProcessingCodeWriter extends CodeWriter {
 
         String className = jPackage.name().isBlank() ? name : jPackage.name() + "." + name.substring(0, name.length() - DOT_JAVA_LENGTH);
 
-        if (!openedOutputStreams.containsKey(className)) {
-            JavaFileObject javaFileObject = filer.createSourceFile(className);
-            openedOutputStreams.put(
-                    className,
-                    javaFileObject.openOutputStream()
-            );
-        }
+        Element originatingElement = originatingElements.get(className);
+        JavaFileObject javaFileObject = originatingElement != null ?
+                filer.createSourceFile(className, originatingElement) :
+                filer.createSourceFile(className);
 
-        return openedOutputStreams.get(className);
+        return new BufferedOutputStream(javaFileObject.openOutputStream());
     }
 
     @Override
-    public void close() throws IOException {
-        for (OutputStream outputStream: openedOutputStreams.values()) {
-            outputStream.flush();
-            outputStream.close();
-        }
+    public void close() {
+        // JCodeModel closes the stream of every file as soon as it's written, nothing is kept open
     }
 }
@@ -1,7 +1,6 @@
 package ga.josejulio.annotation.processor.codemodel.toolkit;
 
 import com.sun.codemodel.JAnnotatable;
-import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JClass;
 import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JCodeModel;
@@ -11,6 +10,7 @@ import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JMod;
 import com.sun.codemodel.JType;
+import com.sun.codemodel.JTypeVar;
 import com.sun.codemodel.JVar;
 
 import javax.lang.model.element.AnnotationMirror;
@@ -19,13 +19,20 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
 import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
 import javax.lang.model.util.Types;
 import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -36,6 +43,12 @@ public class AnnotationProcessorToolkit {
 
     private final JCodeModel codeModel;
     private final Types types;
+    // Annotations of an element are converted once and then applied to every target they are copied to
+    private final Map<CopyPlanKey, AnnotationCopyPlan> copyPlans = new HashMap<>();
+    // Type mirror (as string) -> converted type, signatures repeat a lot across the generated versions
+    private final Map<String, JType> jTypes = new HashMap<>();
+    // Qualified name -> class, code model only imports a simple name if all its references are the same instance
+    private final Map<String, JClass> jClasses = new HashMap<>();
 
     public AnnotationProcessorToolkit(JCodeModel codeModel, Types types) {
         this.codeModel = codeModel;
@@ -64,11 +77,16 @@ public class AnnotationProcessorToolkit {
 
         JMethod jMethod = klass
                 .method(toMods(method.getModifiers()), returnValue, method.getSimpleName().toString());
-        jMethod.annotate(Override.class);
+        copyTypeParameters(method, jMethod);
+        jMethod.annotate(ref(Override.class));
 
         copyAnnotations(method, jMethod, ignoredAnnotations);
         List<JVar> parameters = copyParameters(method, jMethod, ignoredAnnotations);
 
+        for (TypeMirror thrownType: method.getThrownTypes()) {
+            jMethod._throws((JClass) toJType(thrownType));
+        }
+
         JInvocation superCall = JExpr._super().invoke(method.getSimpleName().toString());
 
         for (JVar parameter: parameters) {
@@ -84,25 +102,35 @@ public class AnnotationProcessorToolkit {
         return jMethod;
     }
 
-    public void copyAnnotations(Element from, JAnnotatable target, Collection<Class<? extends Annotation>> ignoredAnnotations) {
-        List<? extends AnnotationMirror> annotations = from.getAnnotationMirrors();
+    public void copyTypeParameters(ExecutableElement method, JMethod jMethod) {
+        for (TypeParameterElement typeParameter: method.getTypeParameters()) {
+            JTypeVar typeVar = jMethod.generify(typeParameter.getSimpleName().toString());
 
-        annotation_processing:
-        for (AnnotationMirror annotationMirror: annotations) {
+            List<? extends TypeMirror> bounds = typeParameter.getBounds();
+            if (bounds.size() > 1) {
+                throw new AnnotationProcessingException("Type parameters with multiple bounds are not supported: " + typeParameter.getSimpleName());
+            }
 
-            for (Class<?> ignoredAnnotation: ignoredAnnotations) {
-                if (annotationMirror.getAnnotationType().asElement().asType().toString().equals(ignoredAnnotation.getCanonicalName())) {
-                    continue annotation_processing;
-                }
+            if (!bounds.isEmpty() && !bounds.get(0).toString().equals(Object.class.getCanonicalName())) {
+                typeVar.bound((JClass) toJType(bounds.get(0)));
             }
+        }
+    }
 
-            JAnnotationUse jAnnotationUse = target.annotate(codeModel.directClass(annotationMirror.getAnnotationType().asElement().asType().toString()));
+    public void copyAnnotations(Element from, JAnnotatable target, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        getCopyPlan(from, ignoredAnnotations).apply(target);
+    }
 
-            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: annotationMirror.getElementValues().entrySet()) {
-                String key = entry.getKey().getSimpleName().toString();
-                writeAnnotationValue(new AnnotationParamWriter(key, jAnnotationUse), entry.getValue());
-            }
+    AnnotationCopyPlan getCopyPlan(Element from, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        Set<String> ignoredAnnotationNames = new HashSet<>();
+        for (Class<? extends Annotation> ignoredAnnotation: ignoredAnnotations) {
+            ignoredAnnotationNames.add(ignoredAnnotation.getCanonicalName());
         }
+
+        return copyPlans.computeIfAbsent(
+                new CopyPlanKey(from, ignoredAnnotationNames),
+                key -> createCopyPlan(key.element(), key.ignoredAnnotationNames())
+        );
     }
 
     public List<JVar> copyParameters(ExecutableElement method, JMethod jMethod, Collection<Class<? extends Annotation>> ignoredAnnotations) {
@@ -146,10 +174,6 @@ public class AnnotationProcessorToolkit {
     }
 
     public JType toJType(TypeMirror typeMirror) {
-        if (typeMirror instanceof DeclaredType declaredType) {
-            return toJType(declaredType);
-        }
-
         return switch (typeMirror.getKind()) {
             case CHAR -> codeModel.CHAR;
             case BYTE -> codeModel.BYTE;
@@ -160,23 +184,13 @@ public class AnnotationProcessorToolkit {
             case SHORT -> codeModel.SHORT;
             case DOUBLE -> codeModel.DOUBLE;
             case BOOLEAN -> codeModel.BOOLEAN;
+            case DECLARED, ARRAY, WILDCARD, TYPEVAR -> getOrCreateJType(typeMirror);
             default -> throw new AnnotationProcessingException("Unexpected type mirror: " + typeMirror);
         };
     }
 
     public JType toJType(DeclaredType declaredType) {
-        JClass jClass = codeModel.ref(types.erasure(declaredType).toString());
-
-        if (declaredType.getTypeArguments().size() > 0) {
-            return jClass.narrow(declaredType
-                    .getTypeArguments()
-                    .stream()
-                    .map(typedArgument -> (JClass) toJType(typedArgument))
-                    .collect(Collectors.toList())
-            );
-        }
-
-        return jClass;
+        return getOrCreateJType(declaredType);
     }
 
     public JType toJType(AnnotationMirror annotationMirror) {
@@ -187,6 +201,18 @@ public class AnnotationProcessorToolkit {
         return toJType(element.asType());
     }
 
+    /**
+     * Reference to a class the processor already has, shared with the classes read from the elements so that code
+     * model imports them. Use it instead of {@link JCodeModel#ref(Class)} for classes that can also be in the elements.
+     */
+    public JClass ref(Class<?> klass) {
+        return jClasses.computeIfAbsent(klass.getCanonicalName(), name -> codeModel.ref(klass));
+    }
+
+    /**
+     * @deprecated loads the class, which fails for classes compiled in the same round, use {@link #toJType(TypeMirror)}
+     */
+    @Deprecated(forRemoval = true)
     public Class<?> toClass(TypeMirror typeMirror) {
         if (typeMirror instanceof DeclaredType declaredType) {
             return toClass(declaredType);
@@ -206,14 +232,27 @@ public class AnnotationProcessorToolkit {
         };
     }
 
+    /**
+     * @deprecated loads the class, which fails for classes compiled in the same round, use {@link #toJType(DeclaredType)}
+     */
+    @Deprecated(forRemoval = true)
     public <T> Class<T> toClass(DeclaredType declaredType) {
         return (Class<T>) toClass(declaredType.asElement());
     }
 
+    /**
+     * @deprecated loads the class, which fails for classes compiled in the same round, use
+     * {@link #toJType(AnnotationMirror)}
+     */
+    @Deprecated(forRemoval = true)
     public Class<?> toClass(AnnotationMirror annotationMirror) {
         return toClass(annotationMirror.getAnnotationType());
     }
 
+    /**
+     * @deprecated loads the class, which fails for classes compiled in the same round, use {@link #toJType(Element)}
+     */
+    @Deprecated(forRemoval = true)
     public Class<?> toClass(Element element) {
         if (!isClass(element)) {
             return toClass(element.asType());
@@ -248,41 +287,133 @@ public class AnnotationProcessorToolkit {
         }
     }
 
+    private JType getOrCreateJType(TypeMirror typeMirror) {
+        String key = typeMirror.toString();
+        JType jType = jTypes.get(key);
+
+        // Not using computeIfAbsent, type arguments are converted (and cached) while creating the type
+        if (jType == null) {
+            jType = createJType(typeMirror);
+            jTypes.put(key, jType);
+        }
+
+        return jType;
+    }
+
+    private JType createJType(TypeMirror typeMirror) {
+        if (typeMirror instanceof DeclaredType declaredType) {
+            JClass jClass = toJClass((TypeElement) declaredType.asElement());
+
+            if (declaredType.getTypeArguments().size() > 0) {
+                return jClass.narrow(declaredType
+                        .getTypeArguments()
+                        .stream()
+                        .map(typedArgument -> (JClass) toJType(typedArgument))
+                        .collect(Collectors.toList())
+                );
+            }
+
+            return jClass;
+        } else if (typeMirror instanceof ArrayType arrayType) {
+            return toJType(arrayType.getComponentType()).array();
+        } else if (typeMirror instanceof WildcardType wildcardType) {
+            if (wildcardType.getSuperBound() != null) {
+                throw new AnnotationProcessingException("Wildcards with a super bound are not supported: " + typeMirror);
+            }
+
+            TypeMirror extendsBound = wildcardType.getExtendsBound();
+            return (extendsBound != null ? (JClass) toJType(extendsBound) : ref(Object.class)).wildcard();
+        } else if (typeMirror instanceof TypeVariable typeVariable) {
+            // Declared by the generified method (or class), only its name is needed
+            return codeModel.directClass(typeVariable.asElement().getSimpleName().toString());
+        }
+
+        throw new AnnotationProcessingException("Unexpected type mirror: " + typeMirror);
+    }
+
+    JClass toJClass(TypeMirror typeMirror) {
+        return toJClass((TypeElement) ((DeclaredType) types.erasure(typeMirror)).asElement());
+    }
+
+    // Never loads the class, it might not be loadable yet (e.g. it's being compiled in this same round)
+    private JClass toJClass(TypeElement element) {
+        String qualifiedName = element.getQualifiedName().toString();
+        JClass jClass = jClasses.get(qualifiedName);
+
+        // Not using computeIfAbsent, the outer classes are created (and cached) while creating the class
+        if (jClass == null) {
+            Element enclosingElement = element.getEnclosingElement();
+            JClass outer = isClass(enclosingElement) ? toJClass((TypeElement) enclosingElement) : null;
+            ElementClass elementClass = new ElementClass(codeModel, element, outer);
+            jClasses.put(qualifiedName, elementClass);
+            elementClass.resolveSupertypes(this, element);
+            jClass = elementClass;
+        }
+
+        return jClass;
+    }
+
     private boolean isClass(Element element) {
         return element.getKind().isClass() || element.getKind().equals(ElementKind.ANNOTATION_TYPE) || element.getKind().isInterface();
     }
 
-    private void writeAnnotationValue(AnnotationParamWriter annotationParamWriter, AnnotationValue annotationValue) {
+    private AnnotationCopyPlan createCopyPlan(Element from, Set<String> ignoredAnnotationNames) {
+        List<AnnotationCopyPlan.AnnotationCopy> annotations = new ArrayList<>();
+
+        for (AnnotationMirror annotationMirror: from.getAnnotationMirrors()) {
+            TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+            if (ignoredAnnotationNames.contains(annotationElement.getQualifiedName().toString())) {
+                continue;
+            }
+
+            annotations.add(new AnnotationCopyPlan.AnnotationCopy(
+                    toJClass(annotationElement),
+                    toParams(annotationMirror)
+            ));
+        }
+
+        return annotations.isEmpty() ? AnnotationCopyPlan.EMPTY : new AnnotationCopyPlan(List.copyOf(annotations));
+    }
+
+    private List<AnnotationCopyPlan.Param> toParams(AnnotationMirror annotationMirror) {
+        List<AnnotationCopyPlan.Param> params = new ArrayList<>();
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: annotationMirror.getElementValues().entrySet()) {
+            params.add(new AnnotationCopyPlan.Param(entry.getKey().getSimpleName().toString(), toParamValue(entry.getValue())));
+        }
+
+        return List.copyOf(params);
+    }
+
+    private Object toParamValue(AnnotationValue annotationValue) {
         Object value = annotationValue.getValue();
 
-        if (value instanceof Number number) {
-            annotationParamWriter.writeNumber(number);
-        } else if (value instanceof String) {
-            annotationParamWriter.writeString(value.toString());
+        if (value instanceof Number || value instanceof String) {
+            return value;
         } else if (value instanceof TypeMirror typeMirror) {
-            annotationParamWriter.writeJType(toJType(typeMirror));
+            return toJType(typeMirror);
         } else if (value instanceof VariableElement variableElement) {
-            annotationParamWriter.writeEnum(Enum.valueOf((Class<? extends Enum>) toClass(variableElement), variableElement.getSimpleName().toString()));
+            return new AnnotationCopyPlan.EnumConstant(
+                    toJClass((TypeElement) variableElement.getEnclosingElement()),
+                    variableElement.getSimpleName().toString()
+            );
         } else if (value instanceof AnnotationMirror annotationMirror) {
-            writeAnnotationMirror(annotationParamWriter, annotationMirror);
+            return new AnnotationCopyPlan.NestedAnnotation(
+                    toJClass((TypeElement) annotationMirror.getAnnotationType().asElement()),
+                    toParams(annotationMirror)
+            );
         } else if (value instanceof List<?>) {
-            AnnotationParamWriter arrayWriter = annotationParamWriter.writeArray();
+            List<Object> values = new ArrayList<>();
             for (AnnotationValue val: (List<? extends AnnotationValue>) value) {
-                writeAnnotationValue(arrayWriter, val);
+                values.add(toParamValue(val));
             }
+
+            return List.copyOf(values);
         } else {
             throw new UnsupportedOperationException("Unsupported value type of AnnotationValue:" + value);
         }
     }
 
-    private void writeAnnotationMirror(AnnotationParamWriter writer, AnnotationMirror annotationMirror) {
-        Class<? extends Annotation> klass = toClass(annotationMirror.getAnnotationType());
-        JAnnotationUse annotation = writer.writeClass(klass);
-
-        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: annotationMirror.getElementValues().entrySet()) {
-            String key = entry.getKey().getSimpleName().toString();
-            writeAnnotationValue(new AnnotationParamWriter(key, annotation), entry.getValue());
-        }
+    private record CopyPlanKey(Element element, Set<String> ignoredAnnotationNames) {
     }
 
 }
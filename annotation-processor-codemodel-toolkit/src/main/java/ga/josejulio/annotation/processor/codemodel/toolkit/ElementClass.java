@@ -0,0 +1,124 @@
+package ga.josejulio.annotation.processor.codemodel.toolkit;
+
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JPrimitiveType;
+import com.sun.codemodel.JTypeVar;
+
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reference to a class read from its {@link TypeElement}, named the same way code model names the classes it loads,
+ * but without loading it. Classes being compiled in the same round can be referenced too.
+ * <p>
+ * Everything is read from the element up front and the element isn't kept, the code model might be rendered in
+ * another thread while javac keeps using its model.
+ */
+class ElementClass extends JClass {
+
+    private final String name;
+    private final String fullName;
+    private final String packageName;
+    private final boolean isInterface;
+    private final boolean isAbstract;
+    private final JClass outer;
+    private JClass superclass;
+    private List<JClass> interfaces = List.of();
+
+    ElementClass(JCodeModel codeModel, TypeElement element, JClass outer) {
+        super(codeModel);
+        this.name = element.getSimpleName().toString();
+        this.fullName = element.getQualifiedName().toString();
+        int index = fullName.lastIndexOf('.');
+        this.packageName = index < 0 ? "" : fullName.substring(0, index);
+        this.isInterface = element.getKind().isInterface();
+        this.isAbstract = element.getModifiers().contains(Modifier.ABSTRACT);
+        this.outer = outer;
+    }
+
+    // Not done in the constructor, the class is cached before, as its supertypes could reference it back
+    void resolveSupertypes(AnnotationProcessorToolkit toolkit, TypeElement element) {
+        TypeMirror superclass = element.getSuperclass();
+        if (superclass.getKind() == TypeKind.NONE) {
+            this.superclass = isInterface ? owner().ref(Object.class) : null;
+        } else {
+            this.superclass = toolkit.toJClass(superclass);
+        }
+
+        List<JClass> interfaces = new ArrayList<>();
+        for (TypeMirror implemented: element.getInterfaces()) {
+            interfaces.add(toolkit.toJClass(implemented));
+        }
+
+        this.interfaces = List.copyOf(interfaces);
+    }
+
+    @Override
+    public String name() {
+        return name;
+    }
+
+    @Override
+    public String fullName() {
+        return fullName;
+    }
+
+    // No outer(), as with the direct classes code model falls back to, the nested classes are imported by name
+    @Override
+    public String binaryName() {
+        return outer != null ? outer.binaryName() + "$" + name : fullName;
+    }
+
+    @Override
+    public JPackage _package() {
+        return owner()._package(packageName);
+    }
+
+    @Override
+    public JClass _extends() {
+        return superclass;
+    }
+
+    @Override
+    public Iterator<JClass> _implements() {
+        return interfaces.iterator();
+    }
+
+    @Override
+    public boolean isInterface() {
+        return isInterface;
+    }
+
+    @Override
+    public boolean isAbstract() {
+        return isAbstract;
+    }
+
+    @Override
+    public JPrimitiveType getPrimitiveType() {
+        return switch (fullName) {
+            case "java.lang.Boolean" -> owner().BOOLEAN;
+            case "java.lang.Byte" -> owner().BYTE;
+            case "java.lang.Character" -> owner().CHAR;
+            case "java.lang.Short" -> owner().SHORT;
+            case "java.lang.Integer" -> owner().INT;
+            case "java.lang.Long" -> owner().LONG;
+            case "java.lang.Float" -> owner().FLOAT;
+            case "java.lang.Double" -> owner().DOUBLE;
+            case "java.lang.Void" -> owner().VOID;
+            default -> null;
+        };
+    }
+
+    @Override
+    protected JClass substituteParams(JTypeVar[] variables, List<JClass> bindings) {
+        return this;
+    }
+}
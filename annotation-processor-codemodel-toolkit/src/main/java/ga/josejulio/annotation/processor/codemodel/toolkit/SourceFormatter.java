@@ -0,0 +1,265 @@
+package ga.josejulio.annotation.processor.codemodel.toolkit;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints source with the same spacing, indentation and import rules as code model's {@code JFormatter}, so
+ * {@link TemplateClassWriter} writes the same bytes as the code model backend.
+ * <p>
+ * Like {@code JFormatter}, the class is visited twice: first collecting the referenced types and identifiers to find
+ * out which types can be imported, then printing.
+ */
+class SourceFormatter {
+
+    // Same marker as JFormatter, prints '>' followed by a space unless a '(' follows
+    static final char CLOSE_TYPE_ARGS = '\uFFFF';
+    private static final String INDENT = "    ";
+    private static final String JAVA_LANG = "java.lang";
+
+    private final TypeRef typeRef;
+    // Simple name -> types and identifiers using it
+    private final Map<String, References> references = new HashMap<>();
+    private final Map<String, TypeRef> importedTypes = new HashMap<>();
+    private PrintWriter writer;
+    private int indentLevel;
+    private char lastChar;
+    private boolean atBeginningOfLine = true;
+
+    SourceFormatter(String fullClassName) {
+        this.typeRef = TypeRef.of(fullClassName);
+    }
+
+    boolean isPrinting() {
+        return writer != null;
+    }
+
+    void startPrinting(PrintWriter writer) {
+        for (References typeReferences: references.values()) {
+            if (!typeReferences.collides() && !typeReferences.isId()) {
+                TypeRef type = typeReferences.types.get(0);
+                importedTypes.put(type.fullName(), type);
+            }
+        }
+
+        importedTypes.put(typeRef.fullName(), typeRef);
+        this.writer = writer;
+
+        if (!typeRef.packageName().isEmpty()) {
+            nl().p("package").p(typeRef.packageName()).p(';').nl();
+            nl();
+        }
+
+        List<TypeRef> imports = new ArrayList<>(importedTypes.values());
+        imports.sort(SourceFormatter::compare);
+        for (TypeRef type: imports) {
+            if (!suppressImport(type)) {
+                p("import").p(type.fullName()).p(';').nl();
+            }
+        }
+        nl();
+    }
+
+    SourceFormatter i() {
+        indentLevel++;
+        return this;
+    }
+
+    SourceFormatter o() {
+        indentLevel--;
+        return this;
+    }
+
+    SourceFormatter p(char c) {
+        if (isPrinting()) {
+            if (c == CLOSE_TYPE_ARGS) {
+                writer.print('>');
+            } else {
+                spaceIfNeeded(c);
+                writer.print(c);
+            }
+            lastChar = c;
+        }
+        return this;
+    }
+
+    SourceFormatter p(String s) {
+        if (isPrinting()) {
+            spaceIfNeeded(s.charAt(0));
+            writer.print(s);
+            lastChar = s.charAt(s.length() - 1);
+        }
+        return this;
+    }
+
+    SourceFormatter nl() {
+        if (isPrinting()) {
+            writer.println();
+            lastChar = 0;
+            atBeginningOfLine = true;
+        }
+        return this;
+    }
+
+    SourceFormatter t(TypeRef type) {
+        if (isPrinting()) {
+            if (importedTypes.containsKey(type.fullName())) {
+                p(type.name());
+            } else if (type.outer() != null) {
+                t(type.outer()).p('.').p(type.name());
+            } else {
+                p(type.fullName());
+            }
+        } else {
+            references.computeIfAbsent(type.name(), name -> new References()).add(type);
+        }
+        return this;
+    }
+
+    SourceFormatter id(String id) {
+        if (isPrinting()) {
+            p(id);
+        } else {
+            References idReferences = references.get(id);
+            if (idReferences == null) {
+                idReferences = new References();
+                references.put(id, idReferences);
+            } else {
+                for (TypeRef type: idReferences.types) {
+                    if (type.outer() != null) {
+                        idReferences.id = false;
+                        return this;
+                    }
+                }
+            }
+            idReferences.id = true;
+        }
+        return this;
+    }
+
+    private void spaceIfNeeded(char c) {
+        if (atBeginningOfLine) {
+            for (int i = 0; i < indentLevel; i++) {
+                writer.print(INDENT);
+            }
+            atBeginningOfLine = false;
+        } else if (lastChar != 0 && needSpace(lastChar, c)) {
+            writer.print(' ');
+        }
+    }
+
+    private boolean suppressImport(TypeRef type) {
+        return type.packageName().isEmpty() ||
+                type.packageName().equals(JAVA_LANG) ||
+                (type.packageName().equals(typeRef.packageName()) && type.outer() == null);
+    }
+
+    private static int compare(TypeRef left, TypeRef right) {
+        boolean leftJava = left.fullName().startsWith("java");
+        boolean rightJava = right.fullName().startsWith("java");
+
+        if (leftJava != rightJava) {
+            return leftJava ? -1 : 1;
+        }
+
+        return left.fullName().compareTo(right.fullName());
+    }
+
+    private static boolean needSpace(char c1, char c2) {
+        if ((c1 == ']') && (c2 == '{')) return true;
+        if (c1 == ';') return true;
+        if (c1 == CLOSE_TYPE_ARGS) {
+            return c2 != '(';
+        }
+        if ((c1 == ')') && (c2 == '{')) return true;
+        if ((c1 == ',') || (c1 == '=')) return true;
+        if (c2 == '=') return true;
+        if (Character.isDigit(c1)) {
+            return (c2 != '(') && (c2 != ')') && (c2 != ';') && (c2 != ',');
+        }
+        if (Character.isJavaIdentifierPart(c1)) {
+            return switch (c2) {
+                case '{', '}', '+', '>', '@' -> true;
+                default -> Character.isJavaIdentifierStart(c2);
+            };
+        }
+        if (Character.isJavaIdentifierStart(c2)) {
+            return switch (c1) {
+                case ']', ')', '}', '+' -> true;
+                default -> false;
+            };
+        }
+        if (Character.isDigit(c2)) {
+            return c1 != '(';
+        }
+        return false;
+    }
+
+    private class References {
+        private final List<TypeRef> types = new ArrayList<>(1);
+        private boolean id;
+
+        void add(TypeRef type) {
+            for (TypeRef present: types) {
+                if (present.fullName().equals(type.fullName())) {
+                    return;
+                }
+            }
+            types.add(type);
+        }
+
+        boolean collides() {
+            if (types.size() > 1 || (id && !types.isEmpty())) {
+                return true;
+            }
+
+            for (TypeRef type: types) {
+                // Code model checks every class generated in the package, only one is generated at a time here
+                if (type.packageName().equals(JAVA_LANG) && type.name().equals(typeRef.name())) {
+                    return true;
+                }
+
+                if (type.outer() != null) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        boolean isId() {
+            return id && types.isEmpty();
+        }
+    }
+
+    /**
+     * A referenced type, what code model would hold as a {@code JClass}.
+     * Only classes loaded from a {@link Class} know their outer class, like in code model.
+     */
+    record TypeRef(String packageName, String name, String fullName, TypeRef outer) {
+
+        static TypeRef of(String fullName) {
+            int index = fullName.lastIndexOf('.');
+            return new TypeRef(
+                    index < 0 ? "" : fullName.substring(0, index),
+                    fullName.substring(index + 1),
+                    fullName,
+                    null
+            );
+        }
+
+        static TypeRef of(Class<?> klass) {
+            String fullName = klass.getName().replace('$', '.');
+            int index = fullName.lastIndexOf('.');
+            return new TypeRef(
+                    index < 0 ? "" : fullName.substring(0, index),
+                    klass.getSimpleName(),
+                    fullName,
+                    klass.getEnclosingClass() != null ? of(klass.getEnclosingClass()) : null
+            );
+        }
+    }
+}
@@ -0,0 +1,506 @@
+package ga.josejulio.annotation.processor.codemodel.toolkit;
+
+import com.sun.codemodel.JExpr;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Types;
+import java.io.BufferedWriter;
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes a class extending another one, with the same output as building it with {@link AnnotationProcessorToolkit}
+ * and writing it with code model, but rendering straight from the element mirrors instead of building a code model
+ * first.
+ * <p>
+ * Only what is being generated is recorded (elements and added annotations), the mirrors are visited when writing.
+ */
+public class TemplateClassWriter {
+
+    private static final AddedAnnotation OVERRIDE = new AddedAnnotation(SourceFormatter.TypeRef.of(Override.class), null);
+    private static final SourceFormatter.TypeRef OBJECT = SourceFormatter.TypeRef.of(Object.class);
+    // Same order as code model's JMods
+    private static final List<Modifier> MODIFIERS = List.of(
+            Modifier.PUBLIC,
+            Modifier.PROTECTED,
+            Modifier.PRIVATE,
+            Modifier.ABSTRACT,
+            Modifier.STATIC,
+            Modifier.FINAL,
+            Modifier.TRANSIENT,
+            Modifier.VOLATILE,
+            Modifier.SYNCHRONIZED,
+            Modifier.NATIVE
+    );
+    private static final Set<Modifier> UNSUPPORTED_MODIFIERS = EnumSet.of(Modifier.SEALED, Modifier.STRICTFP);
+
+    private final Types types;
+    private final String fullClassName;
+    private final Element superClass;
+    private final List<AnnotationDeclaration> annotations = new ArrayList<>();
+    private final List<OverriddenMethod> methods = new ArrayList<>();
+
+    public TemplateClassWriter(Types types, String newFullClassName, Element element) {
+        if (!element.getKind().isClass()) {
+            throw new AnnotationProcessingException("Unable to extend from non class: " + element.getSimpleName());
+        }
+
+        this.types = types;
+        this.fullClassName = newFullClassName;
+        this.superClass = element;
+    }
+
+    public void copyAnnotations(Element from, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        annotations.add(new CopiedAnnotations(from, ignoredAnnotations));
+    }
+
+    /**
+     * Adds an annotation, with its {@code value} if not null.
+     */
+    public void annotate(Class<? extends Annotation> annotation, String value) {
+        annotations.add(new AddedAnnotation(SourceFormatter.TypeRef.of(annotation), value));
+    }
+
+    public OverriddenMethod overrideMethod(ExecutableElement method, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        OverriddenMethod overriddenMethod = new OverriddenMethod(method, new CopiedAnnotations(method, ignoredAnnotations));
+        methods.add(overriddenMethod);
+        return overriddenMethod;
+    }
+
+    public void write(Writer writer) throws IOException {
+        SourceFormatter formatter = new SourceFormatter(fullClassName);
+        declareClass(formatter);
+
+        PrintWriter printWriter = new PrintWriter(writer);
+        formatter.startPrinting(printWriter);
+        declareClass(formatter);
+
+        printWriter.flush();
+        if (printWriter.checkError()) {
+            throw new IOException("Error writing " + fullClassName);
+        }
+    }
+
+    /**
+     * Opens a writer with the same encoding and escaping code model uses for source files.
+     */
+    public static Writer openSource(OutputStream outputStream) {
+        return new BufferedWriter(new UnicodeEscapingWriter(new OutputStreamWriter(outputStream)));
+    }
+
+    private void declareClass(SourceFormatter f) {
+        for (AnnotationDeclaration annotation: annotations) {
+            annotation.declare(f);
+        }
+
+        f.p("public").p("class").id(SourceFormatter.TypeRef.of(fullClassName).name());
+
+        TypeMirror superType = superClass.asType();
+        if (!toTypeRef(superType).fullName().equals(OBJECT.fullName())) {
+            f.nl().i().p("extends");
+            type(f, superType);
+            f.nl().o();
+        }
+
+        f.p('{').nl().nl().i();
+        for (OverriddenMethod method: methods) {
+            f.nl();
+            method.declare(f);
+        }
+        f.nl().o().p('}').nl();
+    }
+
+    private void type(SourceFormatter f, TypeMirror typeMirror) {
+        if (typeMirror.getKind().isPrimitive() || typeMirror.getKind() == TypeKind.VOID) {
+            f.p(typeMirror.getKind().name().toLowerCase(Locale.ROOT));
+        } else if (typeMirror instanceof DeclaredType declaredType) {
+            f.t(toTypeRef(declaredType));
+
+            if (!declaredType.getTypeArguments().isEmpty()) {
+                f.p('<');
+                typeList(f, declaredType.getTypeArguments());
+                f.p(SourceFormatter.CLOSE_TYPE_ARGS);
+            }
+        } else if (typeMirror instanceof ArrayType arrayType) {
+            type(f, arrayType.getComponentType());
+            f.p("[]");
+        } else if (typeMirror instanceof WildcardType wildcardType) {
+            if (wildcardType.getSuperBound() != null) {
+                throw new AnnotationProcessingException("Wildcards with a super bound are not supported: " + typeMirror);
+            }
+
+            TypeMirror extendsBound = wildcardType.getExtendsBound();
+            if (extendsBound == null || isObject(extendsBound)) {
+                f.p("?");
+            } else {
+                f.p("? extends");
+                type(f, extendsBound);
+            }
+        } else if (typeMirror instanceof TypeVariable typeVariable) {
+            f.t(SourceFormatter.TypeRef.of(typeVariable.asElement().getSimpleName().toString()));
+        } else {
+            throw new AnnotationProcessingException("Unexpected type mirror: " + typeMirror);
+        }
+    }
+
+    private void typeList(SourceFormatter f, List<? extends TypeMirror> typeMirrors) {
+        boolean first = true;
+        for (TypeMirror typeMirror: typeMirrors) {
+            if (!first) {
+                f.p(',');
+            }
+            type(f, typeMirror);
+            first = false;
+        }
+    }
+
+    private void annotation(SourceFormatter f, AnnotationMirror annotationMirror) {
+        f.p('@').t(toTypeRef(annotationMirror.getAnnotationType()));
+
+        Map<? extends ExecutableElement, ? extends AnnotationValue> values = annotationMirror.getElementValues();
+        if (values.isEmpty()) {
+            return;
+        }
+
+        f.p('(');
+        if (values.size() == 1 && values.keySet().iterator().next().getSimpleName().contentEquals("value")) {
+            annotationValue(f, values.values().iterator().next());
+        } else {
+            boolean first = true;
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: values.entrySet()) {
+                if (!first) {
+                    f.p(',');
+                }
+                f.p(entry.getKey().getSimpleName().toString()).p('=');
+                annotationValue(f, entry.getValue());
+                first = false;
+            }
+        }
+        f.p(')');
+    }
+
+    private void annotationValue(SourceFormatter f, AnnotationValue annotationValue) {
+        Object value = annotationValue.getValue();
+
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            f.p(Integer.toString(((Number) value).intValue()));
+        } else if (value instanceof Long longValue) {
+            f.p(longValue + "L");
+        } else if (value instanceof Float floatValue) {
+            f.p(toLiteral(floatValue));
+        } else if (value instanceof Double doubleValue) {
+            f.p(toLiteral(doubleValue));
+        } else if (value instanceof String string) {
+            f.p(JExpr.quotify('"', string));
+        } else if (value instanceof TypeMirror typeMirror) {
+            classLiteral(f, typeMirror);
+        } else if (value instanceof VariableElement variableElement) {
+            f.t(SourceFormatter.TypeRef.of(toQualifiedName(variableElement.getEnclosingElement())))
+                    .p('.')
+                    .p(variableElement.getSimpleName().toString());
+        } else if (value instanceof AnnotationMirror annotationMirror) {
+            annotation(f, annotationMirror);
+        } else if (value instanceof List<?> values) {
+            f.p('{').nl().i();
+            boolean first = true;
+            for (Object arrayValue: values) {
+                if (!first) {
+                    f.p(',').nl();
+                }
+                annotationValue(f, (AnnotationValue) arrayValue);
+                first = false;
+            }
+            f.nl().o().p('}');
+        } else {
+            throw new UnsupportedOperationException("Unsupported value type of AnnotationValue:" + value);
+        }
+    }
+
+    private void classLiteral(SourceFormatter f, TypeMirror typeMirror) {
+        if (typeMirror instanceof DeclaredType declaredType) {
+            f.t(toTypeRef(declaredType));
+        } else {
+            type(f, typeMirror);
+        }
+        f.p(".class");
+    }
+
+    private SourceFormatter.TypeRef toTypeRef(TypeMirror typeMirror) {
+        return SourceFormatter.TypeRef.of(types.erasure(typeMirror).toString());
+    }
+
+    private boolean isObject(TypeMirror typeMirror) {
+        return typeMirror.getKind() == TypeKind.DECLARED && toTypeRef(typeMirror).fullName().equals(OBJECT.fullName());
+    }
+
+    private static String toLiteral(float value) {
+        if (value == Float.NEGATIVE_INFINITY) {
+            return "java.lang.Float.NEGATIVE_INFINITY";
+        } else if (value == Float.POSITIVE_INFINITY) {
+            return "java.lang.Float.POSITIVE_INFINITY";
+        } else if (Float.isNaN(value)) {
+            return "java.lang.Float.NaN";
+        }
+
+        return value + "F";
+    }
+
+    private static String toLiteral(double value) {
+        if (value == Double.NEGATIVE_INFINITY) {
+            return "java.lang.Double.NEGATIVE_INFINITY";
+        } else if (value == Double.POSITIVE_INFINITY) {
+            return "java.lang.Double.POSITIVE_INFINITY";
+        } else if (Double.isNaN(value)) {
+            return "java.lang.Double.NaN";
+        }
+
+        return value + "D";
+    }
+
+    private static String toQualifiedName(Element element) {
+        return ((TypeElement) element).getQualifiedName().toString();
+    }
+
+    private interface AnnotationDeclaration {
+        void declare(SourceFormatter f);
+    }
+
+    private class CopiedAnnotations implements AnnotationDeclaration {
+        private final Element from;
+        private final Set<String> ignoredAnnotationNames;
+
+        CopiedAnnotations(Element from, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+            this.from = from;
+            this.ignoredAnnotationNames = new HashSet<>();
+            for (Class<? extends Annotation> ignoredAnnotation: ignoredAnnotations) {
+                ignoredAnnotationNames.add(ignoredAnnotation.getCanonicalName());
+            }
+        }
+
+        @Override
+        public void declare(SourceFormatter f) {
+            declare(f, from);
+        }
+
+        void declare(SourceFormatter f, Element element) {
+            for (AnnotationMirror annotationMirror: element.getAnnotationMirrors()) {
+                if (!isIgnored(annotationMirror)) {
+                    annotation(f, annotationMirror);
+                    f.nl();
+                }
+            }
+        }
+
+        boolean hasAnnotations(Element element) {
+            for (AnnotationMirror annotationMirror: element.getAnnotationMirrors()) {
+                if (!isIgnored(annotationMirror)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean isIgnored(AnnotationMirror annotationMirror) {
+            return ignoredAnnotationNames.contains(toQualifiedName(annotationMirror.getAnnotationType().asElement()));
+        }
+    }
+
+    private record AddedAnnotation(SourceFormatter.TypeRef type, String value) implements AnnotationDeclaration {
+        @Override
+        public void declare(SourceFormatter f) {
+            f.p('@').t(type);
+            if (value != null) {
+                f.p('(').p(JExpr.quotify('"', value)).p(')');
+            }
+            f.nl();
+        }
+    }
+
+    public class OverriddenMethod {
+        private final ExecutableElement method;
+        private final CopiedAnnotations copiedAnnotations;
+        private final List<AddedAnnotation> addedAnnotations = new ArrayList<>();
+
+        private OverriddenMethod(ExecutableElement method, CopiedAnnotations copiedAnnotations) {
+            this.method = method;
+            this.copiedAnnotations = copiedAnnotations;
+        }
+
+        /**
+         * Adds an annotation, with its {@code value} if not null.
+         */
+        public void annotate(Class<? extends Annotation> annotation, String value) {
+            addedAnnotations.add(new AddedAnnotation(SourceFormatter.TypeRef.of(annotation), value));
+        }
+
+        private void declare(SourceFormatter f) {
+            OVERRIDE.declare(f);
+            copiedAnnotations.declare(f);
+            for (AddedAnnotation addedAnnotation: addedAnnotations) {
+                addedAnnotation.declare(f);
+            }
+
+            for (Modifier modifier: method.getModifiers()) {
+                if (UNSUPPORTED_MODIFIERS.contains(modifier)) {
+                    throw new AnnotationProcessingException("Modifier not supported: " + modifier);
+                }
+            }
+            for (Modifier modifier: MODIFIERS) {
+                if (method.getModifiers().contains(modifier)) {
+                    f.p(modifier.toString());
+                }
+            }
+
+            declareTypeParameters(f);
+            type(f, method.getReturnType());
+            String name = method.getSimpleName().toString();
+            f.id(name).p('(').i();
+
+            boolean first = true;
+            for (VariableElement parameter: method.getParameters()) {
+                if (!first) {
+                    f.p(',');
+                }
+                if (copiedAnnotations.hasAnnotations(parameter)) {
+                    f.nl();
+                    copiedAnnotations.declare(f, parameter);
+                }
+                type(f, parameter.asType());
+                f.id(parameter.getSimpleName().toString());
+                first = false;
+            }
+            f.o().p(')');
+
+            if (!method.getThrownTypes().isEmpty()) {
+                f.nl().i().p("throws");
+                typeList(f, method.getThrownTypes());
+                f.nl().o();
+            }
+
+            f.p('{').nl().i();
+            if (method.getReturnType().getKind() != TypeKind.VOID) {
+                f.p("return ");
+            }
+            f.p("super").p('.').p(name).p('(');
+            first = true;
+            for (VariableElement parameter: method.getParameters()) {
+                if (!first) {
+                    f.p(',');
+                }
+                f.id(parameter.getSimpleName().toString());
+                first = false;
+            }
+            f.p(')').p(';').nl();
+            f.o().p('}').nl();
+        }
+
+        private void declareTypeParameters(SourceFormatter f) {
+            List<? extends TypeParameterElement> typeParameters = method.getTypeParameters();
+            if (typeParameters.isEmpty()) {
+                return;
+            }
+
+            f.p('<');
+            for (int i = 0; i < typeParameters.size(); i++) {
+                TypeParameterElement typeParameter = typeParameters.get(i);
+                if (i != 0) {
+                    f.p(',');
+                }
+                f.id(typeParameter.getSimpleName().toString());
+
+                List<? extends TypeMirror> bounds = typeParameter.getBounds();
+                if (bounds.size() > 1) {
+                    throw new AnnotationProcessingException("Type parameters with multiple bounds are not supported: " + typeParameter.getSimpleName());
+                }
+
+                if (!bounds.isEmpty() && !bounds.get(0).toString().equals(Object.class.getCanonicalName())) {
+                    f.p("extends");
+                    type(f, bounds.get(0));
+                }
+            }
+            f.p('>');
+        }
+    }
+
+    // Escapes the characters the platform encoding can't write, like code model's UnicodeEscapeWriter
+    private static class UnicodeEscapingWriter extends FilterWriter {
+        private final CharsetEncoder encoder;
+
+        UnicodeEscapingWriter(OutputStreamWriter outputStreamWriter) {
+            super(outputStreamWriter);
+            this.encoder = Charset.forName(outputStreamWriter.getEncoding()).newEncoder();
+        }
+
+        @Override
+        public void write(int c) throws IOException {
+            if (requiresEscaping((char) c)) {
+                out.write("\\u");
+                String hex = Integer.toHexString(c);
+                for (int i = hex.length(); i < 4; i++) {
+                    out.write('0');
+                }
+                out.write(hex);
+            } else {
+                out.write(c);
+            }
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) throws IOException {
+            write(new String(buffer, offset, length), 0, length);
+        }
+
+        @Override
+        public void write(String string, int offset, int length) throws IOException {
+            // Plain runs are written as is, only the characters needing it go one by one
+            int start = offset;
+            int end = offset + length;
+            for (int i = offset; i < end; i++) {
+                if (requiresEscaping(string.charAt(i))) {
+                    out.write(string, start, i - start);
+                    write(string.charAt(i));
+                    start = i + 1;
+                }
+            }
+            out.write(string, start, end - start);
+        }
+
+        private boolean requiresEscaping(char c) {
+            if (c < 0x20 && " \t\r\n".indexOf(c) == -1) {
+                return true;
+            }
+            if (c < 0x80) {
+                return false;
+            }
+            return !encoder.canEncode(c);
+        }
+    }
+}
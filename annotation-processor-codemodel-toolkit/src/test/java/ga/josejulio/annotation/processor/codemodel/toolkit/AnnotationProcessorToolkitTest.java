@@ -11,6 +11,7 @@ import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JMethod;
 import com.sun.codemodel.JType;
+import com.sun.codemodel.writer.SingleStreamCodeWriter;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
@@ -19,6 +20,9 @@ import javax.lang.model.element.Element;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -27,6 +31,8 @@ import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -39,6 +45,9 @@ public class AnnotationProcessorToolkitTest {
     private static final String CASE_INNER_CLASS = "CASE_INNER_CLASS";
     private static final String CASE_ATTRIBUTE_GENERIC = "CASE_ATTRIBUTE_GENERIC";
     private static final String CASE_INTEGER_METHOD = "CASE_INTEGER_METHOD";
+    private static final String CASE_ANNOTATION_VALUES_METHOD = "CASE_ANNOTATION_VALUES_METHOD";
+    private static final String CASE_GENERIC_METHOD = "CASE_GENERIC_METHOD";
+    private static final String CASE_SUPER_WILDCARD_METHOD = "CASE_SUPER_WILDCARD_METHOD";
 
     private final JCodeModel codeModel = new JCodeModel();
     AnnotationProcessorToolkit toolkit = new AnnotationProcessorToolkit(
@@ -46,6 +55,23 @@ public class AnnotationProcessorToolkitTest {
             Tools.types()
     );
 
+    enum Color {
+        RED,
+        GREEN
+    }
+
+    @interface Nested {
+        Color value();
+    }
+
+    @interface Values {
+        Color color();
+        Color[] colors();
+        Nested nested();
+        Nested[] allNested();
+        Class<?>[] types();
+    }
+
     @Case(CASE_SAMPLE_TEST_CLASS)
     class SampleTest {
 
@@ -76,9 +102,30 @@ public class AnnotationProcessorToolkitTest {
             return 2;
         }
 
+        @Values(
+                color = Color.RED,
+                colors = { Color.RED, Color.GREEN },
+                nested = @Nested(Color.GREEN),
+                allNested = { @Nested(Color.RED), @Nested(Color.GREEN) },
+                types = { String.class, Integer.class }
+        )
+        @Case(CASE_ANNOTATION_VALUES_METHOD)
+        public void annotationValues() {
+        }
+
+        @Case(CASE_GENERIC_METHOD)
+        public <T extends Number, R> List<? extends T> generic(T[] values, int[][] matrix, Map<String, ?> map, List<R> list) {
+            return null;
+        }
+
+        @Case(CASE_SUPER_WILDCARD_METHOD)
+        public void superWildcard(List<? super Integer> list) {
+        }
+
     }
 
     @Test
+    @SuppressWarnings("removal")
     void toClassTest(Cases cases) {
         Element element = cases.one(CASE_SAMPLE_TEST_CLASS);
         assertNotNull(element);
@@ -123,6 +170,7 @@ public class AnnotationProcessorToolkitTest {
     }
 
     @Test
+    @SuppressWarnings("removal")
     void toClassInnerClassTest(Cases cases) {
         Element element = cases.one(CASE_INNER_CLASS);
         assertNotNull(element);
@@ -132,6 +180,7 @@ public class AnnotationProcessorToolkitTest {
     }
 
     @Test
+    @SuppressWarnings("removal")
     void toClassAnnotationTest(Cases cases) {
         Element element = cases.one(CASE_INNER_CLASS);
         assertNotNull(element);
@@ -144,6 +193,7 @@ public class AnnotationProcessorToolkitTest {
     }
 
     @Test
+    @SuppressWarnings("removal")
     void toClassGeneric(Cases cases) {
         Element element = cases.one(CASE_ATTRIBUTE_GENERIC);
         assertNotNull(element);
@@ -196,6 +246,43 @@ public class AnnotationProcessorToolkitTest {
         assertEquals(0, params.size());
     }
 
+    @Test
+    void toJTypeCacheTest(Cases cases) {
+        ExecutableElement fooMethod = (ExecutableElement) cases.one(CASE_FOO_METHOD);
+        TypeMirror sampleTestType = fooMethod.getParameters().get(2).asType();
+
+        assertSame(toolkit.toJType(sampleTestType), toolkit.toJType(sampleTestType));
+        assertSame(toolkit.toJType(sampleTestType), toolkit.toJType(fooMethod.getEnclosingElement()));
+        // The classes referenced by the processor are the same ones
+        assertSame(toolkit.ref(SampleTest.class), toolkit.toJType(sampleTestType));
+    }
+
+    @Test
+    void toJTypeArrayWildcardTypeVariableTest(Cases cases) throws IOException {
+        ExecutableElement genericMethod = (ExecutableElement) cases.one(CASE_GENERIC_METHOD);
+        List<? extends VariableElement> params = genericMethod.getParameters();
+
+        assertEquals("List<? extends T>", toolkit.toJType(genericMethod.getReturnType()).name());
+        assertEquals("T[]", toolkit.toJType(params.get(0)).name());
+        assertEquals("int[][]", toolkit.toJType(params.get(1)).name());
+        assertEquals("List<R>", toolkit.toJType(params.get(3)).name());
+
+        JDefinedClass klass = toolkit.extendFromClass("com.redhat.toJTypeArrayWildcardTypeVariableTest", cases.one(CASE_SAMPLE_TEST_CLASS));
+        toolkit.overrideMethod(klass, genericMethod, List.of(Case.class));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codeModel.build(new SingleStreamCodeWriter(outputStream));
+        assertTrue(
+                outputStream.toString(StandardCharsets.UTF_8).contains(
+                        "public<T extends Number, R >List<? extends T> generic(T[] values, int[][] matrix, Map<String, ?> map, List<R> list) {"
+                ),
+                outputStream.toString(StandardCharsets.UTF_8)
+        );
+
+        ExecutableElement superWildcardMethod = (ExecutableElement) cases.one(CASE_SUPER_WILDCARD_METHOD);
+        assertThrows(AnnotationProcessingException.class, () -> toolkit.toJType(superWildcardMethod.getParameters().get(0)));
+    }
+
     @Test
     void toJTypeInnerClassTest(Cases cases) {
         Element element = cases.one(CASE_INNER_CLASS);
@@ -203,6 +290,8 @@ public class AnnotationProcessorToolkitTest {
 
         JType jType = toolkit.toJType(element);
         assertJClass(jType, SampleTest.InnerSampleTest.class);
+        // Not loaded, but named as if it were
+        assertEquals(SampleTest.InnerSampleTest.class.getName(), ((JClass) jType).binaryName());
     }
 
     @Test
@@ -289,6 +378,51 @@ public class AnnotationProcessorToolkitTest {
         assertEquals(CASE_FOO_METHOD, annotations.get(2).getAnnotationMembers().get("value").toString());
     }
 
+    @Test
+    void copyAnnotationsReusesPlanTest(Cases cases) {
+        Element fooMethod = cases.one(CASE_FOO_METHOD);
+        assertNotNull(fooMethod);
+
+        AnnotationCopyPlan plan = toolkit.getCopyPlan(fooMethod, List.of(Deprecated.class));
+        assertSame(plan, toolkit.getCopyPlan(fooMethod, List.of(Deprecated.class)));
+        assertNotSame(plan, toolkit.getCopyPlan(fooMethod, List.of()));
+
+        // Deprecated is ignored, only @Case is left
+        assertEquals(1, plan.getAnnotations().size());
+
+        Element element = cases.one(CASE_SAMPLE_TEST_CLASS);
+        for (String name: List.of("com.redhat.copyAnnotationsFirst", "com.redhat.copyAnnotationsSecond")) {
+            JDefinedClass klass = toolkit.extendFromClass(name, element);
+            toolkit.copyAnnotations(fooMethod, klass, List.of(Deprecated.class));
+
+            List<JAnnotationUse> annotations = List.copyOf(klass.annotations());
+            assertEquals(1, annotations.size());
+            assertEquals(codeModel.ref(Case.class).fullName(), annotations.get(0).getAnnotationClass().fullName());
+            assertEquals(CASE_FOO_METHOD, annotations.get(0).getAnnotationMembers().get("value").toString());
+        }
+    }
+
+    @Test
+    void copyAnnotationValuesTest(Cases cases) throws IOException {
+        Element element = cases.one(CASE_SAMPLE_TEST_CLASS);
+        JDefinedClass klass = toolkit.extendFromClass("com.redhat.copyAnnotationValuesTest", element);
+        toolkit.copyAnnotations(cases.one(CASE_ANNOTATION_VALUES_METHOD), klass, List.of(Case.class));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codeModel.build(new SingleStreamCodeWriter(outputStream));
+        // Every reference to a type is the same class, so they are imported
+        String source = outputStream.toString(StandardCharsets.UTF_8)
+                .replace(AnnotationProcessorToolkitTest.class.getPackageName() + ".", "")
+                .replaceAll("\\s+", " ");
+
+        assertTrue(source.contains("import AnnotationProcessorToolkitTest.Color; import AnnotationProcessorToolkitTest.Nested;"), source);
+        assertTrue(source.contains("color = Color.RED,"), source);
+        assertTrue(source.contains("colors = { Color.RED, Color.GREEN }"), source);
+        assertTrue(source.contains("nested = @Nested(Color.GREEN),"), source);
+        assertTrue(source.contains("allNested = { @Nested(Color.RED), @Nested(Color.GREEN) }"), source);
+        assertTrue(source.contains("types = { String.class, Integer.class }"), source);
+    }
+
     private void assertJClass(JType jType, Class<?> target) {
         assertJClass(jType, new ClassDefinitionAssert(target));
     }
@@ -0,0 +1,199 @@
+package ga.josejulio.annotation.processor.codemodel.toolkit;
+
+import com.karuslabs.elementary.junit.Cases;
+import com.karuslabs.elementary.junit.Tools;
+import com.karuslabs.elementary.junit.ToolsExtension;
+import com.karuslabs.elementary.junit.annotations.Case;
+import com.karuslabs.elementary.junit.annotations.Introspect;
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPackage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(ToolsExtension.class)
+@Introspect
+public class TemplateClassWriterTest {
+
+    private static final String CASE_TEMPLATE_CLASS = "CASE_TEMPLATE_CLASS";
+    private static final String CASE_SUPER_WILDCARD_CLASS = "CASE_SUPER_WILDCARD_CLASS";
+    private static final String CLASS_NAME = "com.redhat.TemplateSampleV1_0";
+    private static final List<Class<? extends Annotation>> IGNORED_ANNOTATIONS = List.of(Case.class);
+
+    enum Mode {
+        FAST,
+        SLOW
+    }
+
+    @interface Tag {
+        Mode value();
+    }
+
+    @interface Label {
+        String value();
+    }
+
+    @interface Literals {
+        int i();
+        long l();
+        short s();
+        byte b();
+        float f();
+        double d();
+        float nan();
+        double infinity();
+        String text();
+        Class<?>[] types();
+        Tag tag();
+        Mode[] modes();
+        String[] empty();
+    }
+
+    @Literals(
+            i = -1,
+            l = 10_000_000_000L,
+            s = 2,
+            b = 3,
+            f = 1.5f,
+            d = -2.5,
+            nan = Float.NaN,
+            infinity = Double.NEGATIVE_INFINITY,
+            text = "tab\t \"quoted\" \u00fcn\u00efc\u00f6d\u00e9 \\",
+            types = { int.class, String[].class, java.sql.Date.class, void.class },
+            tag = @Tag(Mode.FAST),
+            modes = { Mode.FAST, Mode.SLOW },
+            empty = {}
+    )
+    @Tag(Mode.SLOW)
+    @Case(CASE_TEMPLATE_CLASS)
+    public static class TemplateSample {
+
+        @Tag(Mode.FAST)
+        public <T extends Number, R> List<? extends T> generic(T[] values, int[][] matrix, Map<String, ?> map, List<R> list) throws IOException {
+            return null;
+        }
+
+        protected synchronized void dates(@Tag(Mode.SLOW) @Deprecated String first, java.util.Date date, java.sql.Date sqlDate) {
+        }
+
+        public Map.Entry<String, Integer> entry(Map.Entry<String, Integer> entry) {
+            return entry;
+        }
+
+        // Same name as the annotation type
+        public int Tag() {
+            return 0;
+        }
+    }
+
+    @Case(CASE_SUPER_WILDCARD_CLASS)
+    public static class SuperWildcardSample {
+        public void superWildcard(List<? super Integer> list) {
+        }
+    }
+
+    @Test
+    void sameOutputAsCodeModelTest(Cases cases) throws IOException {
+        Element element = cases.one(CASE_TEMPLATE_CLASS);
+
+        byte[] codeModelSource = writeWithCodeModel(element);
+        byte[] templateSource = writeWithTemplate(element);
+
+        assertEquals(new String(codeModelSource, Charset.defaultCharset()), new String(templateSource, Charset.defaultCharset()));
+        assertArrayEquals(codeModelSource, templateSource);
+
+        String source = new String(templateSource, Charset.defaultCharset());
+        assertTrue(source.contains("int.class,"), source);
+        assertTrue(source.contains("String[].class,"), source);
+        assertTrue(source.contains("throws IOException"), source);
+        assertTrue(source.contains("java.util.Date date, java.sql.Date sqlDate"), source);
+        // Same simple name as a method
+        assertTrue(source.contains("@" + TemplateClassWriterTest.class.getName() + ".Tag(Mode.SLOW)"), source);
+    }
+
+    @Test
+    void unsupportedTypesTest(Cases cases) {
+        TemplateClassWriter templateClassWriter = new TemplateClassWriter(Tools.types(), CLASS_NAME, cases.one(CASE_SUPER_WILDCARD_CLASS));
+        for (ExecutableElement method: methods(cases.one(CASE_SUPER_WILDCARD_CLASS))) {
+            templateClassWriter.overrideMethod(method, IGNORED_ANNOTATIONS);
+        }
+
+        assertThrows(AnnotationProcessingException.class, () -> templateClassWriter.write(Writer.nullWriter()));
+        assertThrows(AnnotationProcessingException.class, () -> new TemplateClassWriter(Tools.types(), CLASS_NAME, methods(cases.one(CASE_TEMPLATE_CLASS)).get(0)));
+    }
+
+    private byte[] writeWithCodeModel(Element element) throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        AnnotationProcessorToolkit toolkit = new AnnotationProcessorToolkit(codeModel, Tools.types());
+
+        JDefinedClass klass = toolkit.extendFromClass(CLASS_NAME, element);
+        toolkit.copyAnnotations(element, klass, IGNORED_ANNOTATIONS);
+        klass.annotate(SuppressWarnings.class).param("value", "unchecked");
+
+        for (ExecutableElement method: methods(element)) {
+            JMethod jMethod = toolkit.overrideMethod(klass, method, IGNORED_ANNOTATIONS);
+            jMethod.annotate(Label.class).param("value", method.getSimpleName().toString());
+            jMethod.annotate(toolkit.ref(Deprecated.class));
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codeModel.build(new CodeWriter() {
+            @Override
+            public OutputStream openBinary(JPackage jPackage, String name) {
+                return outputStream;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        return outputStream.toByteArray();
+    }
+
+    private byte[] writeWithTemplate(Element element) throws IOException {
+        TemplateClassWriter templateClassWriter = new TemplateClassWriter(Tools.types(), CLASS_NAME, element);
+        templateClassWriter.copyAnnotations(element, IGNORED_ANNOTATIONS);
+        templateClassWriter.annotate(SuppressWarnings.class, "unchecked");
+
+        for (ExecutableElement method: methods(element)) {
+            TemplateClassWriter.OverriddenMethod overriddenMethod = templateClassWriter.overrideMethod(method, IGNORED_ANNOTATIONS);
+            overriddenMethod.annotate(Label.class, method.getSimpleName().toString());
+            overriddenMethod.annotate(Deprecated.class, null);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Writer writer = TemplateClassWriter.openSource(outputStream)) {
+            templateClassWriter.write(writer);
+        }
+
+        return outputStream.toByteArray();
+    }
+
+    private static List<ExecutableElement> methods(Element element) {
+        return element.getEnclosedElements()
+                .stream()
+                .filter(enclosed -> enclosed.getKind() == ElementKind.METHOD)
+                .map(enclosed -> (ExecutableElement) enclosed)
+                .toList();
+    }
+}
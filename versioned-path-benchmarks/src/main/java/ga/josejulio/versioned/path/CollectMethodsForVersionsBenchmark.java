@@ -0,0 +1,63 @@
+package ga.josejulio.versioned.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Plans which endpoints go in every version, for the same shape of methods and versions as {@link SyntheticSources}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollectMethodsForVersionsBenchmark {
+
+    @Param({"50", "500"})
+    private int methods;
+
+    @Param({"20", "200"})
+    private int versions;
+
+    private List<VersionedEndpoint> endpoints;
+    private Set<Version> endpointVersions;
+
+    @Setup
+    public void setup() {
+        endpoints = new ArrayList<>(methods);
+        endpointVersions = new HashSet<>();
+        endpointVersions.add(Version.parse(SyntheticSources.version(0)));
+
+        for (int method = 0; method < methods; method++) {
+            Version sinceVersion = Version.parse(SyntheticSources.version(method % versions));
+            VersionedMethod.HttpMethod httpMethod = (method / 2) % 3 == 0 ? VersionedMethod.HttpMethod.POST : VersionedMethod.HttpMethod.GET;
+            String path = "/endpoint" + method / 2;
+
+            // The element is not used when planning the versions
+            endpoints.add(new VersionedEndpoint(null, sinceVersion, null, httpMethod, path, "%s_%s".formatted(httpMethod.name(), path)));
+            endpointVersions.add(sinceVersion);
+        }
+    }
+
+    @Benchmark
+    public Map<Version, List<VersionedEndpoint>> collectMethodsForVersions() {
+        return VersionedAnnotationProcessor.collectMethodsForVersions(endpoints, endpointVersions);
+    }
+}
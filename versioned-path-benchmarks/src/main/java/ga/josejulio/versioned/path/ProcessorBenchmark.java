@@ -0,0 +1,58 @@
+package ga.josejulio.versioned.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.tools.JavaFileObject;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiles {@link SyntheticSources} resources with the processor, including the compilation of whatever the backend
+ * generates, as a build would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ProcessorBenchmark {
+
+    @Param({"100", "1000"})
+    private int resources;
+
+    @Param({"50"})
+    private int methods;
+
+    @Param({"20"})
+    private int versions;
+
+    @Param({"codemodel", "template", "bytecode"})
+    private String backend;
+
+    private List<JavaFileObject> sources;
+
+    @Setup
+    public void setup() {
+        sources = SyntheticSources.generate(resources, new SyntheticSources.Shape(methods, versions, 1, 0));
+    }
+
+    @Benchmark
+    public int compile() {
+        return InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.BACKEND_OPTION + "=" + backend),
+                new VersionedAnnotationProcessor()
+        ).size();
+    }
+}
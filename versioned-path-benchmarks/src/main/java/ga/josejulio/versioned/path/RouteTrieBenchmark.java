@@ -0,0 +1,122 @@
+package ga.josejulio.versioned.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Resolves request paths with a {@link RouteTrie} and, as JAX-RS does, by trying the regular expression of every
+ * version's path until one matches.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouteTrieBenchmark {
+
+    private static final int REQUESTS = 1024;
+    private static final int ENDPOINTS = 20;
+
+    @Param({ "5", "25" })
+    private int versionCount;
+
+    private RouteTrie trie;
+    private Pattern[] patterns;
+    private VersionedMethod.HttpMethod[] patternMethods;
+    private String[] requestPaths;
+    private VersionedMethod.HttpMethod[] requestMethods;
+
+    private record Route(long version, VersionedMethod.HttpMethod httpMethod, String path, String template) {
+    }
+
+    @Setup
+    public void setup() {
+        // Every endpoint is served by every version, as the versioned classes inherit them
+        List<Route> routes = new ArrayList<>();
+        for (int version = 1; version <= versionCount; version++) {
+            for (int endpoint = 0; endpoint < ENDPOINTS; endpoint++) {
+                String template = "/api/v$version/resource" + (endpoint / 2) + (endpoint % 2 == 0 ? "" : "/{id}");
+                routes.add(new Route(
+                        Version.pack(version, 0, 0),
+                        endpoint % 4 < 2 ? VersionedMethod.HttpMethod.GET : VersionedMethod.HttpMethod.POST,
+                        template.replace("$version", version + ".0"),
+                        template
+                ));
+            }
+        }
+        routes.sort((left, right) -> RouteTable.compare(
+                left.path(), left.httpMethod().name(), left.version(),
+                right.path(), right.httpMethod().name(), right.version()
+        ));
+
+        long[] versions = new long[routes.size()];
+        String[] httpMethods = new String[routes.size()];
+        String[] paths = new String[routes.size()];
+        String[] templates = new String[routes.size()];
+        String[] methods = new String[routes.size()];
+        patterns = new Pattern[routes.size()];
+        patternMethods = new VersionedMethod.HttpMethod[routes.size()];
+        for (int i = 0; i < routes.size(); i++) {
+            Route route = routes.get(i);
+            versions[i] = route.version();
+            httpMethods[i] = route.httpMethod().name();
+            paths[i] = route.path();
+            templates[i] = route.template();
+            methods[i] = "Resource#method" + i;
+            patterns[i] = Pattern.compile(Pattern.quote(route.path()).replace("{id}", "\\E[^/]+\\Q"));
+            patternMethods[i] = route.httpMethod();
+        }
+        trie = new RouteTrie(new RouteTable(versions, httpMethods, paths, methods), templates);
+
+        // Fixed seed, every run resolves the same requests
+        Random random = new Random(42);
+        requestPaths = new String[REQUESTS];
+        requestMethods = new VersionedMethod.HttpMethod[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            Route route = routes.get(random.nextInt(routes.size()));
+            requestPaths[i] = route.path().replace("{id}", String.valueOf(random.nextInt(1000)));
+            requestMethods[i] = route.httpMethod();
+        }
+    }
+
+    @Benchmark
+    public int trie() {
+        int result = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            result += trie.resolve(requestMethods[i], requestPaths[i]);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public int regex() {
+        int result = 0;
+        for (int i = 0; i < REQUESTS; i++) {
+            for (int route = 0; route < patterns.length; route++) {
+                if (patternMethods[route] == requestMethods[i] && patterns[route].matcher(requestPaths[i]).matches()) {
+                    result += route;
+                    break;
+                }
+            }
+        }
+
+        return result;
+    }
+}
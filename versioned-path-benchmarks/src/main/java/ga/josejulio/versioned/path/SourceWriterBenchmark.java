@@ -0,0 +1,125 @@
+package ga.josejulio.versioned.path;
+
+import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessorToolkit;
+import ga.josejulio.annotation.processor.codemodel.toolkit.TemplateClassWriter;
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPackage;
+import com.sun.source.util.JavacTask;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds and renders the source of one generated class per invocation, with code model and with the
+ * {@link TemplateClassWriter}, from the elements of a {@link SyntheticSources} resource. Both write the same sources,
+ * run with {@code -prof gc} to compare the allocated bytes ({@code gc.alloc.rate.norm}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SourceWriterBenchmark {
+
+    private static final List<Class<? extends Annotation>> IGNORED_ANNOTATIONS = List.of(
+            VersionedPath.class,
+            VersionedMethod.class
+    );
+    private static final String CLASS_NAME = SyntheticSources.qualifiedClassName(0) + "V1_0";
+
+    @Param({"50"})
+    private int methods;
+
+    // Keeps the compiler context, and so the elements, alive
+    private JavacTask task;
+    private Types types;
+    private TypeElement classElement;
+    private List<ExecutableElement> methodElements;
+
+    @Setup
+    public void setup() {
+        task = InMemoryCompiler.analyze(List.of(SyntheticSources.source(
+                SyntheticSources.className(0),
+                SyntheticSources.resource(0, new SyntheticSources.Shape(methods, 20, 1, 0))
+        )));
+        types = task.getTypes();
+        classElement = task.getElements().getTypeElement(SyntheticSources.qualifiedClassName(0));
+        methodElements = classElement.getEnclosedElements()
+                .stream()
+                .filter(element -> element.getKind() == ElementKind.METHOD)
+                .map(element -> (ExecutableElement) element)
+                .toList();
+    }
+
+    @Benchmark
+    public byte[] codeModel() throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        AnnotationProcessorToolkit toolkit = new AnnotationProcessorToolkit(codeModel, types);
+        JDefinedClass klass = toolkit.extendFromClass(CLASS_NAME, classElement);
+        toolkit.copyAnnotations(classElement, klass, IGNORED_ANNOTATIONS);
+        klass.annotate(toolkit.ref(Path.class)).param("value", "/api/v1.0");
+
+        for (ExecutableElement method: methodElements) {
+            JMethod jMethod = toolkit.overrideMethod(klass, method, IGNORED_ANNOTATIONS);
+            jMethod.annotate(toolkit.ref(GET.class));
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        codeModel.build(new CodeWriter() {
+            @Override
+            public OutputStream openBinary(JPackage jPackage, String name) {
+                return outputStream;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] template() throws IOException {
+        TemplateClassWriter templateClassWriter = new TemplateClassWriter(types, CLASS_NAME, classElement);
+        templateClassWriter.copyAnnotations(classElement, IGNORED_ANNOTATIONS);
+        templateClassWriter.annotate(Path.class, "/api/v1.0");
+
+        for (ExecutableElement method: methodElements) {
+            templateClassWriter.overrideMethod(method, IGNORED_ANNOTATIONS).annotate(GET.class, null);
+        }
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (Writer writer = TemplateClassWriter.openSource(outputStream)) {
+            templateClassWriter.write(writer);
+        }
+
+        return outputStream.toByteArray();
+    }
+}
@@ -0,0 +1,93 @@
+package ga.josejulio.versioned.path;
+
+import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessorToolkit;
+import com.sun.codemodel.JCodeModel;
+import com.sun.codemodel.JDefinedClass;
+import com.sun.source.util.JavacTask;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.util.Types;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds one generated class per invocation, as the processor does for every version, from the elements of a
+ * {@link SyntheticSources} resource.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ToolkitBenchmark {
+
+    private static final List<Class<? extends Annotation>> IGNORED_ANNOTATIONS = List.of(
+            VersionedPath.class,
+            VersionedMethod.class
+    );
+    private static final String CLASS_NAME = SyntheticSources.qualifiedClassName(0) + "V1_0";
+
+    @Param({"50"})
+    private int methods;
+
+    // Keeps the compiler context, and so the elements, alive
+    private JavacTask task;
+    private Types types;
+    private TypeElement classElement;
+    private List<ExecutableElement> methodElements;
+
+    @Setup
+    public void setup() {
+        task = InMemoryCompiler.analyze(List.of(SyntheticSources.source(
+                SyntheticSources.className(0),
+                SyntheticSources.resource(0, new SyntheticSources.Shape(methods, 20, 1, 0))
+        )));
+        types = task.getTypes();
+        classElement = task.getElements().getTypeElement(SyntheticSources.qualifiedClassName(0));
+        methodElements = classElement.getEnclosedElements()
+                .stream()
+                .filter(element -> element.getKind() == ElementKind.METHOD)
+                .map(element -> (ExecutableElement) element)
+                .toList();
+    }
+
+    @Benchmark
+    public JDefinedClass copyAnnotations() {
+        AnnotationProcessorToolkit toolkit = new AnnotationProcessorToolkit(new JCodeModel(), types);
+        JDefinedClass klass = toolkit.extendFromClass(CLASS_NAME, classElement);
+
+        toolkit.copyAnnotations(classElement, klass, IGNORED_ANNOTATIONS);
+        for (ExecutableElement method: methodElements) {
+            toolkit.copyAnnotations(method, klass, IGNORED_ANNOTATIONS);
+        }
+
+        return klass;
+    }
+
+    @Benchmark
+    public JDefinedClass overrideMethod() {
+        AnnotationProcessorToolkit toolkit = new AnnotationProcessorToolkit(new JCodeModel(), types);
+        JDefinedClass klass = toolkit.extendFromClass(CLASS_NAME, classElement);
+
+        for (ExecutableElement method: methodElements) {
+            toolkit.overrideMethod(klass, method, IGNORED_ANNOTATIONS);
+        }
+
+        return klass;
+    }
+}
@@ -0,0 +1,75 @@
+package ga.josejulio.versioned.path;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionBenchmark {
+
+    private static final int SIZE = 1024;
+
+    private String[] versionStrings;
+    private Version[] versions;
+
+    @Setup
+    public void setup() {
+        // Fixed seed, every run parses the same versions
+        Random random = new Random(42);
+        versionStrings = new String[SIZE];
+        versions = new Version[SIZE];
+
+        for (int i = 0; i < SIZE; i++) {
+            versionStrings[i] = switch (i % 4) {
+                case 0 -> String.valueOf(random.nextInt(10));
+                case 1 -> random.nextInt(10) + "." + random.nextInt(50);
+                case 2 -> random.nextInt(10) + "." + random.nextInt(50) + "." + random.nextInt(100);
+                default -> random.nextInt(10) + "." + random.nextInt(50) + ".0-beta." + random.nextInt(5);
+            };
+            versions[i] = Version.parse(versionStrings[i]);
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        for (String versionString: versionStrings) {
+            blackhole.consume(Version.parse(versionString));
+        }
+    }
+
+    @Benchmark
+    public int compareTo() {
+        int result = 0;
+        for (int i = 1; i < SIZE; i++) {
+            result += versions[i - 1].compareTo(versions[i]);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public int hash() {
+        int result = 0;
+        for (Version version: versions) {
+            result += version.hashCode();
+        }
+
+        return result;
+    }
+}
@@ -0,0 +1,110 @@
+package ga.josejulio.versioned.path;
+
+import ga.josejulio.versioned.path.runtime.VersionNegotiator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Negotiates the version of unversioned requests from their {@code Accept-Version} or vendor media type, over 25
+ * versions of 10 paths.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VersionNegotiatorBenchmark {
+
+    private static final int REQUESTS = 1024;
+    private static final int VERSIONS = 25;
+    private static final int RESOURCES = 10;
+
+    private VersionNegotiator negotiator;
+    private String[] paths;
+    private String[] acceptVersions;
+    private String[] accepts;
+
+    @Setup
+    public void setup() {
+        List<String[]> routes = new ArrayList<>();
+        for (int version = 1; version <= VERSIONS; version++) {
+            for (int resource = 0; resource < RESOURCES; resource++) {
+                routes.add(new String[] { version + ".0", "/api/v" + version + ".0/resource" + resource, "/api/v$version/resource" + resource });
+            }
+        }
+        routes.sort((left, right) -> RouteTable.compare(
+                left[1], "GET", Version.parse(left[0]).getPackedKey(),
+                right[1], "GET", Version.parse(right[0]).getPackedKey()
+        ));
+
+        long[] versions = new long[routes.size()];
+        String[] httpMethods = new String[routes.size()];
+        String[] routePaths = new String[routes.size()];
+        String[] templates = new String[routes.size()];
+        String[] methods = new String[routes.size()];
+        for (int route = 0; route < routes.size(); route++) {
+            versions[route] = Version.parse(routes.get(route)[0]).getPackedKey();
+            httpMethods[route] = "GET";
+            routePaths[route] = routes.get(route)[1];
+            templates[route] = routes.get(route)[2];
+            methods[route] = "Resource#get" + route;
+        }
+        negotiator = new VersionNegotiator(new RouteTable(versions, httpMethods, routePaths, methods), templates, "acme");
+
+        // Fixed seed, every run negotiates the same requests
+        Random random = new Random(42);
+        paths = new String[REQUESTS];
+        acceptVersions = new String[REQUESTS];
+        accepts = new String[REQUESTS];
+        for (int i = 0; i < REQUESTS; i++) {
+            int version = random.nextInt(VERSIONS) + 1;
+            paths[i] = "/api/resource" + random.nextInt(RESOURCES);
+            acceptVersions[i] = version + ".0";
+            accepts[i] = "text/plain;q=0.5, application/vnd.acme.v" + version + "+json";
+        }
+    }
+
+    @Benchmark
+    public long acceptVersion() {
+        long result = 0;
+        for (String acceptVersion: acceptVersions) {
+            result += negotiator.fromAcceptVersion(acceptVersion);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public long mediaType() {
+        long result = 0;
+        for (String accept: accepts) {
+            result += negotiator.fromMediaType(accept);
+        }
+
+        return result;
+    }
+
+    @Benchmark
+    public void negotiate(Blackhole blackhole) {
+        for (int i = 0; i < REQUESTS; i++) {
+            if (!negotiator.isRoute("GET", paths[i])) {
+                blackhole.consume(negotiator.versionedPath("GET", paths[i], negotiator.fromAcceptVersion(acceptVersions[i])));
+            }
+        }
+    }
+}
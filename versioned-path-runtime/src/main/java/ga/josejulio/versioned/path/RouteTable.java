@@ -0,0 +1,134 @@
+package ga.josejulio.versioned.path;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Every route of the generated versions, as listed by the {@code VersionedRoutes} classes generated with
+ * {@code versioned.path.routes=true}. A route is a version, an HTTP method, a normalized path (see
+ * {@link #normalizePath}) and the method serving it, e.g. {@code org.acme.PetResource#addPet}.
+ * <p>
+ * Routes are stored in parallel arrays sorted by path, HTTP method and version (see {@link #compare}), so they can be
+ * looked up with a binary search and nothing has to be computed when the class is loaded.
+ */
+public final class RouteTable {
+
+    private final long[] versions;
+    private final String[] httpMethods;
+    private final String[] paths;
+    private final String[] methods;
+
+    /**
+     * The arrays are not copied, and must be sorted with {@link #compare}.
+     */
+    public RouteTable(long[] versions, String[] httpMethods, String[] paths, String[] methods) {
+        if (versions.length != httpMethods.length || versions.length != paths.length || versions.length != methods.length) {
+            throw new IllegalArgumentException("Every route needs a version, an HTTP method, a path and a method");
+        }
+
+        this.versions = versions;
+        this.httpMethods = httpMethods;
+        this.paths = paths;
+        this.methods = methods;
+    }
+
+    public int size() {
+        return versions.length;
+    }
+
+    /**
+     * Returns the route of the HTTP method and normalized path in the given version, or -1 if there is none.
+     */
+    public int resolve(VersionedMethod.HttpMethod httpMethod, String path, Version version) {
+        String httpMethodName = httpMethod.name();
+        long packedVersion = version.getPackedKey();
+
+        int low = 0;
+        int high = versions.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int result = compare(paths[middle], httpMethods[middle], versions[middle], path, httpMethodName, packedVersion);
+            if (result < 0) {
+                low = middle + 1;
+            } else if (result > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+
+        return -1;
+    }
+
+    public Version version(int route) {
+        return Version.fromPackedKey(versions[route]);
+    }
+
+    public VersionedMethod.HttpMethod httpMethod(int route) {
+        return VersionedMethod.HttpMethod.valueOf(httpMethods[route]);
+    }
+
+    public String path(int route) {
+        return paths[route];
+    }
+
+    public String method(int route) {
+        return methods[route];
+    }
+
+    /**
+     * Every version with routes, sorted.
+     */
+    public List<Version> versions() {
+        TreeSet<Long> sortedVersions = new TreeSet<>();
+        for (long version: versions) {
+            sortedVersions.add(version);
+        }
+
+        List<Version> versionList = new ArrayList<>(sortedVersions.size());
+        for (long version: sortedVersions) {
+            versionList.add(Version.fromPackedKey(version));
+        }
+
+        return versionList;
+    }
+
+    /**
+     * Order of the routes: by path, then HTTP method name and then version.
+     */
+    public static int compare(String path, String httpMethod, long version, String otherPath, String otherHttpMethod, long otherVersion) {
+        int result = path.compareTo(otherPath);
+        if (result == 0) {
+            result = httpMethod.compareTo(otherHttpMethod);
+        }
+        if (result == 0) {
+            result = Long.compare(version, otherVersion);
+        }
+
+        return result;
+    }
+
+    /**
+     * Path with a leading slash and without empty segments or trailing slash, e.g. {@code "api/v1.0//pets/"} is
+     * {@code "/api/v1.0/pets"}.
+     */
+    public static String normalizePath(String path) {
+        StringBuilder normalized = new StringBuilder(path.length() + 1);
+        int index = 0;
+        while (index < path.length()) {
+            int end = path.indexOf('/', index);
+            if (end < 0) {
+                end = path.length();
+            }
+
+            if (end > index) {
+                normalized.append('/').append(path, index, end);
+            }
+
+            index = end + 1;
+        }
+
+        return normalized.isEmpty() ? "/" : normalized.toString();
+    }
+}
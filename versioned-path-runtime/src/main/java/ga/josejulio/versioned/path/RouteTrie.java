@@ -0,0 +1,311 @@
+package ga.josejulio.versioned.path;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Trie of the route templates of a {@link RouteTable}, keyed on the path segments, to find the route of a request
+ * path without trying every version's path in turn.
+ * <p>
+ * The segment holding {@code $version} (e.g. {@code v$version}) matches any version, which is then looked up with a
+ * binary search in the sorted versions of the matched path. {@code {parameter}} segments match any single segment.
+ * Literal segments are tried first, then the version and parameter ones when they don't lead to a route, e.g.
+ * {@code /v1.0/pets/special} is served by {@code /v$version/pets/{id}} if {@code /v$version/pets/special} is not in
+ * {@code 1.0}. Lookups don't allocate.
+ */
+public final class RouteTrie {
+
+    /**
+     * The path is not one of the route templates, or not with the requested HTTP method.
+     */
+    public static final int NO_ROUTE = -1;
+    /**
+     * The path is one of the route templates, but the version is not served by any of its routes.
+     */
+    public static final int UNKNOWN_VERSION = -2;
+
+    // Internal, the path is served in the version but not with the HTTP method: a NO_ROUTE that wins over UNKNOWN_VERSION
+    private static final int OTHER_METHOD = -3;
+    private static final String VERSION_REPLACEMENT = "$version";
+    private static final VersionedMethod.HttpMethod[] HTTP_METHODS = VersionedMethod.HttpMethod.values();
+
+    private final Node root;
+
+    /**
+     * @param templates normalized path of every route of the table, with {@code $version} in place of the version
+     */
+    public RouteTrie(RouteTable routes, String[] templates) {
+        if (templates.length != routes.size()) {
+            throw new IllegalArgumentException("Every route needs a template");
+        }
+
+        NodeBuilder rootBuilder = new NodeBuilder();
+        for (int route = 0; route < templates.length; route++) {
+            NodeBuilder builder = rootBuilder;
+            for (String segment: templates[route].split("/")) {
+                if (!segment.isEmpty()) {
+                    builder = builder.child(segment);
+                }
+            }
+
+            Version version = routes.version(route);
+            builder.addRoute(routes.httpMethod(route), Version.pack(version.getMajor(), version.getMinor(), 0), route);
+        }
+
+        root = rootBuilder.build();
+    }
+
+    /**
+     * Returns the route of the HTTP method and path (with or without leading or trailing slashes), {@link #NO_ROUTE} or
+     * {@link #UNKNOWN_VERSION}.
+     */
+    public int resolve(VersionedMethod.HttpMethod httpMethod, CharSequence path) {
+        int route = resolve(root, httpMethod, path, 0, -1);
+        return route == OTHER_METHOD ? NO_ROUTE : route;
+    }
+
+    /**
+     * Same as {@link #resolve(VersionedMethod.HttpMethod, CharSequence)}, with the HTTP method name of a request.
+     */
+    public int resolve(String httpMethod, CharSequence path) {
+        for (VersionedMethod.HttpMethod candidate: HTTP_METHODS) {
+            if (candidate.name().equals(httpMethod)) {
+                return resolve(candidate, path);
+            }
+        }
+
+        return NO_ROUTE;
+    }
+
+    // Backtracks to the version and parameter children while no route is found, UNKNOWN_VERSION only if none has one
+    private static int resolve(Node node, VersionedMethod.HttpMethod httpMethod, CharSequence path, int index, long version) {
+        while (index < path.length() && path.charAt(index) == '/') {
+            index++;
+        }
+        if (index == path.length()) {
+            return node.route(httpMethod, version);
+        }
+
+        int end = index;
+        while (end < path.length() && path.charAt(end) != '/') {
+            end++;
+        }
+
+        int result = NO_ROUTE;
+        Node literal = node.literal(path, index, end);
+        if (literal != null) {
+            result = resolve(literal, httpMethod, path, end, version);
+            if (result >= 0) {
+                return result;
+            }
+        }
+
+        if (node.version != null) {
+            long segmentVersion = node.parseVersion(path, index, end);
+            if (segmentVersion >= 0 && (version < 0 || version == segmentVersion)) {
+                result = closest(result, resolve(node.version, httpMethod, path, end, segmentVersion));
+                if (result >= 0) {
+                    return result;
+                }
+            }
+        }
+
+        if (node.parameter != null) {
+            result = closest(result, resolve(node.parameter, httpMethod, path, end, version));
+        }
+
+        return result;
+    }
+
+    // A route, then OTHER_METHOD, then UNKNOWN_VERSION, then NO_ROUTE
+    private static int closest(int result, int other) {
+        return rank(other) > rank(result) ? other : result;
+    }
+
+    private static int rank(int result) {
+        return switch (result) {
+            case NO_ROUTE -> 0;
+            case UNKNOWN_VERSION -> 1;
+            case OTHER_METHOD -> 2;
+            default -> 3;
+        };
+    }
+
+    private static final class Node {
+        // Sorted
+        private final String[] literals;
+        private final Node[] literalChildren;
+        private final Node parameter;
+        // Segment with the version, e.g. "v" and "" for "v$version"
+        private final Node version;
+        private final String versionPrefix;
+        private final String versionSuffix;
+        // Routes ending here, by HTTP method ordinal: sorted versions (major and minor) and their routes
+        private final long[][] versions;
+        private final int[][] routes;
+        // Every version of the routes ending here, sorted
+        private final long[] allVersions;
+
+        private Node(String[] literals, Node[] literalChildren, Node parameter, Node version, String versionPrefix, String versionSuffix, long[][] versions, int[][] routes, long[] allVersions) {
+            this.literals = literals;
+            this.literalChildren = literalChildren;
+            this.parameter = parameter;
+            this.version = version;
+            this.versionPrefix = versionPrefix;
+            this.versionSuffix = versionSuffix;
+            this.versions = versions;
+            this.routes = routes;
+            this.allVersions = allVersions;
+        }
+
+        Node literal(CharSequence path, int from, int to) {
+            int low = 0;
+            int high = literals.length - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int result = compare(literals[middle], path, from, to);
+                if (result < 0) {
+                    low = middle + 1;
+                } else if (result > 0) {
+                    high = middle - 1;
+                } else {
+                    return literalChildren[middle];
+                }
+            }
+
+            return null;
+        }
+
+        long parseVersion(CharSequence path, int from, int to) {
+            int versionFrom = from + versionPrefix.length();
+            int versionTo = to - versionSuffix.length();
+            if (versionFrom >= versionTo
+                    || compare(versionPrefix, path, from, versionFrom) != 0
+                    || compare(versionSuffix, path, versionTo, to) != 0) {
+                return -1;
+            }
+
+            return Version.parsePackedKey(path, versionFrom, versionTo);
+        }
+
+        int route(VersionedMethod.HttpMethod httpMethod, long version) {
+            long[] methodVersions = versions[httpMethod.ordinal()];
+            if (allVersions.length == 0) {
+                return NO_ROUTE;
+            } else if (version < 0) {
+                // Not a versioned path, the latest route
+                return methodVersions.length == 0 ? OTHER_METHOD : routes[httpMethod.ordinal()][methodVersions.length - 1];
+            }
+
+            int index = Arrays.binarySearch(methodVersions, version);
+            if (index >= 0) {
+                return routes[httpMethod.ordinal()][index];
+            }
+
+            return Arrays.binarySearch(allVersions, version) >= 0 ? OTHER_METHOD : UNKNOWN_VERSION;
+        }
+
+        private static int compare(String segment, CharSequence path, int from, int to) {
+            int length = Math.min(segment.length(), to - from);
+            for (int i = 0; i < length; i++) {
+                int result = Character.compare(segment.charAt(i), path.charAt(from + i));
+                if (result != 0) {
+                    return result;
+                }
+            }
+
+            return segment.length() - (to - from);
+        }
+    }
+
+    private static final class NodeBuilder {
+        private final Map<String, NodeBuilder> literals = new TreeMap<>();
+        private NodeBuilder parameter;
+        private NodeBuilder version;
+        private String versionPrefix;
+        private String versionSuffix;
+        private final List<List<long[]>> routes = new ArrayList<>();
+
+        NodeBuilder() {
+            for (int i = 0; i < HTTP_METHODS.length; i++) {
+                routes.add(new ArrayList<>());
+            }
+        }
+
+        NodeBuilder child(String segment) {
+            int versionIndex = segment.indexOf(VERSION_REPLACEMENT);
+            if (versionIndex >= 0) {
+                String prefix = segment.substring(0, versionIndex);
+                String suffix = segment.substring(versionIndex + VERSION_REPLACEMENT.length());
+                if (version == null) {
+                    version = new NodeBuilder();
+                    versionPrefix = prefix;
+                    versionSuffix = suffix;
+                }
+
+                // A single version segment per node, the others are only reachable through the JAX-RS matching
+                return prefix.equals(versionPrefix) && suffix.equals(versionSuffix) ? version : new NodeBuilder();
+            }
+
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                if (parameter == null) {
+                    parameter = new NodeBuilder();
+                }
+
+                return parameter;
+            }
+
+            return literals.computeIfAbsent(segment, key -> new NodeBuilder());
+        }
+
+        void addRoute(VersionedMethod.HttpMethod httpMethod, long version, int route) {
+            routes.get(httpMethod.ordinal()).add(new long[] { version, route });
+        }
+
+        Node build() {
+            String[] literalSegments = literals.keySet().toArray(new String[0]);
+            Node[] literalChildren = new Node[literalSegments.length];
+            for (int i = 0; i < literalSegments.length; i++) {
+                literalChildren[i] = literals.get(literalSegments[i]).build();
+            }
+
+            long[][] versions = new long[HTTP_METHODS.length][];
+            int[][] routeIndexes = new int[HTTP_METHODS.length][];
+            TreeSet<Long> allVersions = new TreeSet<>();
+            for (int method = 0; method < HTTP_METHODS.length; method++) {
+                List<long[]> methodRoutes = routes.get(method);
+                methodRoutes.sort((left, right) -> Long.compare(left[0], right[0]));
+
+                versions[method] = new long[methodRoutes.size()];
+                routeIndexes[method] = new int[methodRoutes.size()];
+                for (int i = 0; i < methodRoutes.size(); i++) {
+                    versions[method][i] = methodRoutes.get(i)[0];
+                    routeIndexes[method][i] = (int) methodRoutes.get(i)[1];
+                    allVersions.add(methodRoutes.get(i)[0]);
+                }
+            }
+
+            long[] allVersionsArray = new long[allVersions.size()];
+            int index = 0;
+            for (long version: allVersions) {
+                allVersionsArray[index++] = version;
+            }
+
+            return new Node(
+                    literalSegments,
+                    literalChildren,
+                    parameter != null ? parameter.build() : null,
+                    version != null ? version.build() : null,
+                    versionPrefix,
+                    versionSuffix,
+                    versions,
+                    routeIndexes,
+                    allVersionsArray
+            );
+        }
+    }
+}
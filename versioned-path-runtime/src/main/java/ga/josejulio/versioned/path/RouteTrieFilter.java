@@ -0,0 +1,41 @@
+package ga.josejulio.versioned.path;
+
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.Response;
+
+/**
+ * Looks up the request in a {@link RouteTrie} before the JAX-RS matching, extended by the {@code VersionedRoutesFilter}
+ * classes generated with {@code versioned.path.routeFilter=true}.
+ * <p>
+ * Requests for a versioned path in a version that doesn't serve it are answered with 404 right away, instead of trying
+ * every version's path first. Matched requests get the route in the {@link #ROUTE_PROPERTY} property (and its method
+ * and version in {@link #METHOD_PROPERTY} and {@link #VERSION_PROPERTY}). A filter can't call the resource method, so
+ * everything else is still left to the JAX-RS matching.
+ */
+public class RouteTrieFilter implements ContainerRequestFilter {
+
+    public static final String ROUTE_PROPERTY = "versioned.path.route";
+    public static final String METHOD_PROPERTY = "versioned.path.method";
+    public static final String VERSION_PROPERTY = "versioned.path.version";
+
+    private final RouteTable routes;
+    private final RouteTrie trie;
+
+    public RouteTrieFilter(RouteTable routes, RouteTrie trie) {
+        this.routes = routes;
+        this.trie = trie;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        int route = trie.resolve(requestContext.getMethod(), requestContext.getUriInfo().getPath());
+        if (route >= 0) {
+            requestContext.setProperty(ROUTE_PROPERTY, route);
+            requestContext.setProperty(METHOD_PROPERTY, routes.method(route));
+            requestContext.setProperty(VERSION_PROPERTY, routes.version(route));
+        } else if (route == RouteTrie.UNKNOWN_VERSION) {
+            requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).build());
+        }
+    }
+}
@@ -0,0 +1,442 @@
+package ga.josejulio.versioned.path;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Semantic version (<a href="https://semver.org">semver.org</a>). Minor and patch can be omitted, e.g. "1" or "1.2",
+ * and default to 0. Build metadata is kept but, as in semver, ignored when comparing versions.
+ * <p>
+ * {@link #of} and {@link #parse} return canonical instances (up to {@link #INTERN_LIMIT} distinct versions), so they
+ * can be compared by identity and their string forms are only computed once. {@link #tryParse}, meant for untrusted
+ * input, only returns the canonical instances of versions that are already interned and never adds new ones, so
+ * clients can't fill the table.
+ * <p>
+ * Major, minor and patch are packed in a single {@code long} ({@link #getPackedKey()}), 21 bits each, which orders
+ * the same way as the versions (ignoring pre-releases) and can be stored in primitive arrays and sorted tables.
+ */
+public class Version implements Comparable<Version> {
+
+    static final int INTERN_LIMIT = 4096;
+    public static final int MAX_COMPONENT = (1 << 21) - 1;
+    private static final int COMPONENT_BITS = 21;
+    private static final ConcurrentMap<Key, Version> interned = new ConcurrentHashMap<>();
+
+    // major << 42 | minor << 21 | patch
+    private final long packedKey;
+    // Empty when not present
+    private final String preRelease;
+    private final String buildMetadata;
+
+    private final String versionString;
+    private final String shortVersionString;
+    private final String minorVersionString;
+
+    public Version(int major, int minor, int patch) {
+        this(major, minor, patch, "", "");
+    }
+
+    public Version(int major, int minor, int patch, String preRelease, String buildMetadata) {
+        if (major < 0 || minor < 0 || patch < 0) {
+            throw new RuntimeException("Invalid version: negative numbers are not allowed");
+        }
+
+        if (major > MAX_COMPONENT || minor > MAX_COMPONENT || patch > MAX_COMPONENT) {
+            throw new RuntimeException("Invalid version: numbers greater than " + MAX_COMPONENT + " are not allowed");
+        }
+
+        if ((!preRelease.isEmpty() && !isIdentifiers(preRelease, 0, preRelease.length())) ||
+                (!buildMetadata.isEmpty() && !isIdentifiers(buildMetadata, 0, buildMetadata.length()))) {
+            throw new RuntimeException("Invalid version: pre-release and build metadata must be dot separated [0-9A-Za-z-] identifiers");
+        }
+
+        this.packedKey = pack(major, minor, patch);
+        this.preRelease = preRelease;
+        this.buildMetadata = buildMetadata;
+
+        String suffix = (preRelease.isEmpty() ? "" : "-" + preRelease) + (buildMetadata.isEmpty() ? "" : "+" + buildMetadata);
+        this.minorVersionString = major + "." + minor;
+        this.versionString = minorVersionString + "." + patch + suffix;
+        if (patch == 0) {
+            this.shortVersionString = (minor == 0 ? String.valueOf(major) : minorVersionString) + suffix;
+        } else {
+            this.shortVersionString = versionString;
+        }
+    }
+
+    public Version(String versionString) {
+        this(parse(versionString));
+    }
+
+    private Version(Version version) {
+        this.packedKey = version.packedKey;
+        this.preRelease = version.preRelease;
+        this.buildMetadata = version.buildMetadata;
+        this.versionString = version.versionString;
+        this.shortVersionString = version.shortVersionString;
+        this.minorVersionString = version.minorVersionString;
+    }
+
+    public static Version of(int major, int minor, int patch) {
+        return of(major, minor, patch, "", "");
+    }
+
+    public static Version of(int major, int minor, int patch, String preRelease, String buildMetadata) {
+        Version version = interned.get(new Key(pack(major, minor, patch), preRelease, buildMetadata));
+        return version != null ? version : intern(new Version(major, minor, patch, preRelease, buildMetadata));
+    }
+
+    public static Version fromPackedKey(long packedKey) {
+        return of(unpackMajor(packedKey), unpackMinor(packedKey), unpackPatch(packedKey));
+    }
+
+    public static long pack(int major, int minor, int patch) {
+        return ((long) major << (2 * COMPONENT_BITS)) | ((long) minor << COMPONENT_BITS) | patch;
+    }
+
+    public static Version parse(CharSequence value) {
+        return parse(value, 0, value.length());
+    }
+
+    /**
+     * Parses the version found between {@code from} (inclusive) and {@code to} (exclusive), e.g. the version segment
+     * of a request path, without copying it first.
+     *
+     * @throws RuntimeException if the range does not hold a valid version.
+     */
+    public static Version parse(CharSequence value, int from, int to) {
+        Version version = tryParse(value, from, to);
+        if (version == null) {
+            throw new RuntimeException("Invalid version string:" + value.subSequence(from, to));
+        }
+
+        return intern(version);
+    }
+
+    /**
+     * Same as {@link #parse(CharSequence, int, int)} but returns null instead of throwing if the version is invalid,
+     * for callers parsing untrusted input, like request paths or headers. Versions that are not interned yet are
+     * returned as new instances.
+     */
+    public static Version tryParse(CharSequence value, int from, int to) {
+        if (from < 0 || to > value.length() || from >= to) {
+            return null;
+        }
+
+        int index = skipCore(value, from, to);
+        long packedKey = parseCore(value, from, index);
+        if (packedKey < 0) {
+            return null;
+        }
+
+        String preRelease = "";
+        if (index < to && value.charAt(index) == '-') {
+            int end = skipIdentifiers(value, ++index, to);
+            if (!isIdentifiers(value, index, end)) {
+                return null;
+            }
+
+            preRelease = value.subSequence(index, end).toString();
+            index = end;
+        }
+
+        String buildMetadata = "";
+        if (index < to && value.charAt(index) == '+') {
+            int end = skipIdentifiers(value, ++index, to);
+            if (!isIdentifiers(value, index, end)) {
+                return null;
+            }
+
+            buildMetadata = value.subSequence(index, end).toString();
+            index = end;
+        }
+
+        if (index != to) {
+            return null;
+        }
+
+        Version version = interned.get(new Key(packedKey, preRelease, buildMetadata));
+        return version != null ? version : new Version(unpackMajor(packedKey), unpackMinor(packedKey), unpackPatch(packedKey), preRelease, buildMetadata);
+    }
+
+    /**
+     * Parses a release version (no pre-release or build metadata) between {@code from} and {@code to} into its packed
+     * key, without allocating.
+     *
+     * @return the packed key or -1 if the range does not hold a valid release version.
+     */
+    public static long parsePackedKey(CharSequence value, int from, int to) {
+        if (from < 0 || to > value.length() || from >= to) {
+            return -1;
+        }
+
+        return parseCore(value, from, to);
+    }
+
+    public int getMajor() {
+        return unpackMajor(packedKey);
+    }
+
+    public int getMinor() {
+        return unpackMinor(packedKey);
+    }
+
+    public int getPatch() {
+        return unpackPatch(packedKey);
+    }
+
+    public long getPackedKey() {
+        return packedKey;
+    }
+
+    public String getPreRelease() {
+        return preRelease;
+    }
+
+    public String getBuildMetadata() {
+        return buildMetadata;
+    }
+
+    public boolean isPreRelease() {
+        return !preRelease.isEmpty();
+    }
+
+    public String toShortVersionString() {
+        return shortVersionString;
+    }
+
+    public String toMinorVersionString() {
+        return minorVersionString;
+    }
+
+    @Override
+    public String toString() {
+        return versionString;
+    }
+
+    @Override
+    public int compareTo(Version that) {
+        int result = Long.compare(packedKey, that.packedKey);
+        if (result != 0 || preRelease.isEmpty() && that.preRelease.isEmpty()) {
+            return result;
+        }
+
+        return comparePreRelease(preRelease, that.preRelease);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+
+        if (obj instanceof Version that) {
+            return packedKey == that.packedKey && preRelease.equals(that.preRelease);
+        }
+
+        return false;
+    }
+
+    // Collision free for releases with major < 2048, minor < 2048 and patch < 1024
+    @Override
+    public int hashCode() {
+        return Long.hashCode(packedKey) ^ preRelease.hashCode();
+    }
+
+    private static Version intern(Version version) {
+        // Bounded, in case a code base declares more versions than that
+        if (interned.size() >= INTERN_LIMIT) {
+            return version;
+        }
+
+        Version previous = interned.putIfAbsent(new Key(version.packedKey, version.preRelease, version.buildMetadata), version);
+        return previous != null ? previous : version;
+    }
+
+    private static int unpackMajor(long packedKey) {
+        return (int) (packedKey >>> (2 * COMPONENT_BITS));
+    }
+
+    private static int unpackMinor(long packedKey) {
+        return (int) (packedKey >>> COMPONENT_BITS) & MAX_COMPONENT;
+    }
+
+    private static int unpackPatch(long packedKey) {
+        return (int) packedKey & MAX_COMPONENT;
+    }
+
+    // Index right after major[.minor[.patch]]
+    private static int skipCore(CharSequence value, int index, int to) {
+        while (index < to && (isDigit(value.charAt(index)) || value.charAt(index) == '.')) {
+            ++index;
+        }
+
+        return index;
+    }
+
+    // Packed key of major[.minor[.patch]] spanning the whole range, or -1 if invalid
+    private static long parseCore(CharSequence value, int from, int to) {
+        int index = from;
+        int end = skipDigits(value, index, to);
+        int major = toComponent(value, index, end);
+        if (major < 0) {
+            return -1;
+        }
+
+        int minor = 0;
+        int patch = 0;
+        index = end;
+
+        if (index < to && value.charAt(index) == '.') {
+            end = skipDigits(value, ++index, to);
+            minor = toComponent(value, index, end);
+            if (minor < 0) {
+                return -1;
+            }
+
+            index = end;
+            if (index < to && value.charAt(index) == '.') {
+                end = skipDigits(value, ++index, to);
+                patch = toComponent(value, index, end);
+                if (patch < 0) {
+                    return -1;
+                }
+
+                index = end;
+            }
+        }
+
+        return index == to ? pack(major, minor, patch) : -1;
+    }
+
+    // A version without pre-release has higher precedence, otherwise dot separated identifiers are compared from left to right:
+    // numeric identifiers numerically, alphanumeric ones in ASCII order and numeric ones lower than alphanumeric ones.
+    private static int comparePreRelease(String left, String right) {
+        if (left.isEmpty() || right.isEmpty()) {
+            return Boolean.compare(left.isEmpty(), right.isEmpty());
+        }
+
+        int leftIndex = 0;
+        int rightIndex = 0;
+
+        while (leftIndex < left.length() && rightIndex < right.length()) {
+            int leftEnd = left.indexOf('.', leftIndex);
+            leftEnd = leftEnd < 0 ? left.length() : leftEnd;
+            int rightEnd = right.indexOf('.', rightIndex);
+            rightEnd = rightEnd < 0 ? right.length() : rightEnd;
+
+            boolean leftNumeric = skipDigits(left, leftIndex, leftEnd) == leftEnd;
+            boolean rightNumeric = skipDigits(right, rightIndex, rightEnd) == rightEnd;
+
+            int result;
+            if (leftNumeric && rightNumeric) {
+                // Longer numbers are greater (ignoring leading zeros), same length ones compare as text
+                int leftStart = skipZeros(left, leftIndex, leftEnd);
+                int rightStart = skipZeros(right, rightIndex, rightEnd);
+                result = Integer.compare(leftEnd - leftStart, rightEnd - rightStart);
+                if (result == 0) {
+                    result = compareText(left, leftStart, leftEnd, right, rightStart, rightEnd);
+                }
+            } else if (leftNumeric != rightNumeric) {
+                result = leftNumeric ? -1 : 1;
+            } else {
+                result = compareText(left, leftIndex, leftEnd, right, rightIndex, rightEnd);
+            }
+
+            if (result != 0) {
+                return result < 0 ? -1 : 1;
+            }
+
+            leftIndex = leftEnd + 1;
+            rightIndex = rightEnd + 1;
+        }
+
+        // All the identifiers in common are equal, the one with more identifiers is greater
+        return Boolean.compare(leftIndex < left.length(), rightIndex < right.length());
+    }
+
+    private static int compareText(String left, int leftFrom, int leftTo, String right, int rightFrom, int rightTo) {
+        int length = Math.min(leftTo - leftFrom, rightTo - rightFrom);
+        for (int i = 0; i < length; ++i) {
+            int result = Character.compare(left.charAt(leftFrom + i), right.charAt(rightFrom + i));
+            if (result != 0) {
+                return result;
+            }
+        }
+
+        return Integer.compare(leftTo - leftFrom, rightTo - rightFrom);
+    }
+
+    private static int skipDigits(CharSequence value, int index, int to) {
+        while (index < to && isDigit(value.charAt(index))) {
+            ++index;
+        }
+
+        return index;
+    }
+
+    private static int skipZeros(CharSequence value, int index, int to) {
+        while (index < to - 1 && value.charAt(index) == '0') {
+            ++index;
+        }
+
+        return index;
+    }
+
+    private static int skipIdentifiers(CharSequence value, int index, int to) {
+        while (index < to && (isIdentifierCharacter(value.charAt(index)) || value.charAt(index) == '.')) {
+            ++index;
+        }
+
+        return index;
+    }
+
+    // Non-empty identifiers separated by a single dot
+    private static boolean isIdentifiers(CharSequence value, int from, int to) {
+        boolean expectIdentifier = true;
+        for (int i = from; i < to; ++i) {
+            char character = value.charAt(i);
+            if (character == '.') {
+                if (expectIdentifier) {
+                    return false;
+                }
+
+                expectIdentifier = true;
+            } else if (isIdentifierCharacter(character)) {
+                expectIdentifier = false;
+            } else {
+                return false;
+            }
+        }
+
+        return !expectIdentifier;
+    }
+
+    // Returns -1 if there are no digits or the number is greater than MAX_COMPONENT
+    private static int toComponent(CharSequence value, int from, int to) {
+        if (from == to) {
+            return -1;
+        }
+
+        long number = 0;
+        for (int i = from; i < to; ++i) {
+            number = number * 10 + (value.charAt(i) - '0');
+            if (number > MAX_COMPONENT) {
+                return -1;
+            }
+        }
+
+        return (int) number;
+    }
+
+    private static boolean isDigit(char character) {
+        return character >= '0' && character <= '9';
+    }
+
+    private static boolean isIdentifierCharacter(char character) {
+        return isDigit(character) || (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z') || character == '-';
+    }
+
+    private record Key(long packedKey, String preRelease, String buildMetadata) {
+    }
+}
@@ -0,0 +1,31 @@
+package ga.josejulio.versioned.path;
+
+import java.util.Arrays;
+
+/**
+ * Used by the classes generated with {@code versioned.path.strategy=dispatcher} to find the requested version in their
+ * table of versions, the sorted {@link Version#getPackedKey() packed keys} of every version they serve.
+ */
+public final class VersionDispatch {
+
+    private VersionDispatch() {
+    }
+
+    /**
+     * Returns the index of the version in the packed versions, or -1 if it's not one of them (or not a version at all).
+     * Doesn't allocate.
+     */
+    public static int indexOf(long[] packedVersions, CharSequence version) {
+        if (version == null) {
+            return -1;
+        }
+
+        long packedKey = Version.parsePackedKey(version, 0, version.length());
+        if (packedKey < 0) {
+            return -1;
+        }
+
+        int index = Arrays.binarySearch(packedVersions, packedKey);
+        return index < 0 ? -1 : index;
+    }
+}
@@ -10,5 +10,5 @@ import java.lang.annotation.Target;
 public @interface VersionedPath {
     String path(); // /api/foobar/$version/endpoints
     String sinceVersion() default ""; // Version number
-    // Todo: Add removedOn version
+    String removedInVersion() default ""; // First version without the class or method, none if empty
 }
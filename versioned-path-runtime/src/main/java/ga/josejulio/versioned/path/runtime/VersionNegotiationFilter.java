@@ -0,0 +1,81 @@
+package ga.josejulio.versioned.path.runtime;
+
+import ga.josejulio.versioned.path.RouteTable;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.UriInfo;
+
+/**
+ * Serves requests to an unversioned path, e.g. {@code /api/pets}, with the version of their {@code Accept-Version}
+ * header or vendor media type, by pointing them to the versioned path (e.g. {@code /api/v2.0/pets}) before the JAX-RS
+ * matching. The vendor media type is replaced with its suffix, e.g. {@code application/json}, for the {@code @Produces}
+ * of the versioned classes.
+ * <p>
+ * Extended with {@code @Provider} and {@code @PreMatching} in the package of a {@code VersionedRoutes} class generated
+ * with {@code versioned.path.routeFilter=true}. Requests to an unversioned path of these routes for a version that is
+ * not served are answered with 404, any other path, including the ones that are already routes, is left as it is.
+ */
+public class VersionNegotiationFilter implements ContainerRequestFilter {
+
+    public static final String ACCEPT_VERSION = "Accept-Version";
+
+    private static final String PATH_TEMPLATE = "{path}";
+
+    private final VersionNegotiator negotiator;
+
+    public VersionNegotiationFilter(RouteTable routes, String[] templates, String vendor) {
+        this(new VersionNegotiator(routes, templates, vendor));
+    }
+
+    public VersionNegotiationFilter(VersionNegotiator negotiator) {
+        this.negotiator = negotiator;
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        UriInfo uriInfo = requestContext.getUriInfo();
+        String httpMethod = requestContext.getMethod();
+        // Decoded, as RouteTrieFilter matches it
+        String path = uriInfo.getPath();
+        if (negotiator.isRoute(httpMethod, path)) {
+            return;
+        }
+
+        String accept = null;
+        long version = negotiator.fromAcceptVersion(requestContext.getHeaderString(ACCEPT_VERSION));
+        if (version == VersionNegotiator.NO_VERSION) {
+            accept = requestContext.getHeaderString(HttpHeaders.ACCEPT);
+            version = negotiator.fromMediaType(accept);
+        }
+
+        if (version == VersionNegotiator.NO_VERSION) {
+            return;
+        } else if (version == VersionNegotiator.UNKNOWN_VERSION) {
+            // Only for the paths served here, any other endpoint (or the filter of another package) handles the rest
+            if (negotiator.isNegotiable(httpMethod, path)) {
+                requestContext.abortWith(Response.status(Response.Status.NOT_FOUND).build());
+            }
+            return;
+        }
+
+        String versionedPath = negotiator.versionedPath(httpMethod, path, version);
+        if (versionedPath == null) {
+            return;
+        }
+
+        if (accept != null) {
+            requestContext.getHeaders().putSingle(HttpHeaders.ACCEPT, negotiator.withoutVendorMediaTypes(accept));
+        }
+
+        String basePath = uriInfo.getBaseUri().getPath();
+        if (basePath.endsWith("/")) {
+            basePath = basePath.substring(0, basePath.length() - 1);
+        }
+        // Encoded again as a template value, which keeps the slashes
+        requestContext.setRequestUri(uriInfo.getRequestUriBuilder()
+                .replacePath(PATH_TEMPLATE)
+                .build(new Object[] { basePath + versionedPath }, false));
+    }
+}
@@ -0,0 +1,328 @@
+package ga.josejulio.versioned.path.runtime;
+
+import ga.josejulio.versioned.path.RouteTable;
+import ga.josejulio.versioned.path.RouteTrie;
+import ga.josejulio.versioned.path.Version;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Finds the version requested with an {@code Accept-Version: 2.0} header or a vendor media type
+ * ({@code Accept: application/vnd.acme.v2+json}), among the versions of a {@link RouteTable}, and the versioned path
+ * serving an unversioned request path in that version.
+ * <p>
+ * The served versions are kept in a sorted array, a major version alone (e.g. {@code 2}) is the latest of its minor
+ * versions. Parsing the headers and looking the version up don't allocate.
+ */
+public final class VersionNegotiator {
+
+    /**
+     * No version was requested, or it couldn't be parsed.
+     */
+    public static final long NO_VERSION = -1;
+    /**
+     * The requested version is not served.
+     */
+    public static final long UNKNOWN_VERSION = -2;
+
+    private static final String VERSION_REPLACEMENT = "$version";
+    private static final long NEXT_MINOR = Version.pack(0, 1, 0);
+    private static final long NEXT_MAJOR = Version.pack(1, 0, 0);
+
+    private final RouteTrie trie;
+    // Served versions (major and minor), sorted, and how they are written in the paths
+    private final long[] versions;
+    private final String[] versionStrings;
+    private final VersionPosition[] positions;
+    // e.g. "application/vnd.acme.v"
+    private final String mediaTypePrefix;
+
+    /**
+     * @param templates normalized path of every route of the table, with {@code $version} in place of the version
+     * @param vendor the vendor of the media types, e.g. {@code acme} for {@code application/vnd.acme.v2+json}
+     */
+    public VersionNegotiator(RouteTable routes, String[] templates, String vendor) {
+        this.trie = new RouteTrie(routes, templates);
+        this.mediaTypePrefix = ("application/vnd." + vendor + ".v").toLowerCase(Locale.ROOT);
+
+        TreeSet<Long> servedVersions = new TreeSet<>();
+        for (Version version: routes.versions()) {
+            servedVersions.add(Version.pack(version.getMajor(), version.getMinor(), 0));
+        }
+
+        versions = new long[servedVersions.size()];
+        versionStrings = new String[servedVersions.size()];
+        int index = 0;
+        for (long version: servedVersions) {
+            versions[index] = version;
+            versionStrings[index] = Version.fromPackedKey(version).toMinorVersionString();
+            index++;
+        }
+
+        List<VersionPosition> templatePositions = new ArrayList<>();
+        for (String template: templates) {
+            int versionIndex = template.indexOf(VERSION_REPLACEMENT);
+            if (versionIndex < 0) {
+                continue;
+            }
+
+            int segmentStart = template.lastIndexOf('/', versionIndex) + 1;
+            int segmentEnd = template.indexOf('/', versionIndex);
+            if (segmentEnd < 0) {
+                segmentEnd = template.length();
+            }
+
+            VersionPosition position = new VersionPosition(
+                    trimSlashes(template.substring(0, segmentStart)),
+                    template.substring(segmentStart, versionIndex),
+                    template.substring(versionIndex + VERSION_REPLACEMENT.length(), segmentEnd)
+            );
+            if (!templatePositions.contains(position)) {
+                templatePositions.add(position);
+            }
+        }
+
+        positions = templatePositions.toArray(new VersionPosition[0]);
+    }
+
+    /**
+     * Served versions (major and minor, as {@link Version#getPackedKey()}), sorted.
+     */
+    public long[] versions() {
+        return versions.clone();
+    }
+
+    /**
+     * Returns the served version of an {@code Accept-Version} header value (e.g. {@code 2.0} or {@code 2}),
+     * {@link #NO_VERSION} or {@link #UNKNOWN_VERSION}.
+     */
+    public long fromAcceptVersion(CharSequence header) {
+        if (header == null) {
+            return NO_VERSION;
+        }
+
+        int from = 0;
+        int to = header.length();
+        while (from < to && Character.isWhitespace(header.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(header.charAt(to - 1))) {
+            to--;
+        }
+
+        return served(header, from, to);
+    }
+
+    /**
+     * Returns the served version of the first vendor media type of an {@code Accept} header value,
+     * {@link #NO_VERSION} or {@link #UNKNOWN_VERSION}.
+     */
+    public long fromMediaType(CharSequence header) {
+        if (header == null) {
+            return NO_VERSION;
+        }
+
+        int from = indexOfMediaType(header, 0);
+        if (from < 0) {
+            return NO_VERSION;
+        }
+
+        from += mediaTypePrefix.length();
+        return served(header, from, endOfVersion(header, from));
+    }
+
+    /**
+     * Replaces the vendor media types of an {@code Accept} header value with their structured syntax suffix, e.g.
+     * {@code application/vnd.acme.v2+json} with {@code application/json}, or with {@code *}{@code /*} if they have
+     * none.
+     */
+    public String withoutVendorMediaTypes(String header) {
+        int from = indexOfMediaType(header, 0);
+        if (from < 0) {
+            return header;
+        }
+
+        StringBuilder builder = new StringBuilder(header.length());
+        int copied = 0;
+        while (from >= 0) {
+            int end = endOfVersion(header, from + mediaTypePrefix.length());
+            int suffixEnd = end;
+            if (end < header.length() && header.charAt(end) == '+') {
+                suffixEnd = end + 1;
+                while (suffixEnd < header.length() && isMediaTypeChar(header.charAt(suffixEnd))) {
+                    suffixEnd++;
+                }
+            }
+
+            builder.append(header, copied, from);
+            if (suffixEnd > end) {
+                builder.append("application/").append(header, end + 1, suffixEnd);
+            } else {
+                builder.append("*/*");
+            }
+
+            copied = suffixEnd;
+            from = indexOfMediaType(header, suffixEnd);
+        }
+
+        return builder.append(header, copied, header.length()).toString();
+    }
+
+    /**
+     * Returns the path of the route serving the unversioned path in the version (as returned by
+     * {@link #fromAcceptVersion(CharSequence)} or {@link #fromMediaType(CharSequence)}), e.g. {@code /api/v2.0/pets}
+     * for {@code /api/pets}, or {@code null} if there is none.
+     */
+    public String versionedPath(String httpMethod, CharSequence path, long version) {
+        int versionIndex = Arrays.binarySearch(versions, version);
+        return versionIndex < 0 ? null : versionedPath(httpMethod, path, versionIndex);
+    }
+
+    /**
+     * Whether the unversioned path is served in any version, so a request for a version that is not served can be
+     * answered with 404. Other paths (e.g. of other packages) are not for this negotiator.
+     */
+    public boolean isNegotiable(String httpMethod, CharSequence path) {
+        for (int versionIndex = 0; versionIndex < versions.length; versionIndex++) {
+            if (versionedPath(httpMethod, path, versionIndex) != null) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether the path is one of the routes, in any version, and doesn't need to be negotiated.
+     */
+    public boolean isRoute(String httpMethod, CharSequence path) {
+        return trie.resolve(httpMethod, path) != RouteTrie.NO_ROUTE;
+    }
+
+    private String versionedPath(String httpMethod, CharSequence path, int versionIndex) {
+        int from = 0;
+        while (from < path.length() && path.charAt(from) == '/') {
+            from++;
+        }
+
+        for (VersionPosition position: positions) {
+            String prefix = position.pathPrefix();
+            int rest = from + prefix.length();
+            if (!regionMatches(path, from, prefix) || (!prefix.isEmpty() && rest < path.length() && path.charAt(rest) != '/')) {
+                continue;
+            }
+
+            StringBuilder builder = new StringBuilder(path.length() + 16).append('/');
+            if (!prefix.isEmpty()) {
+                builder.append(prefix).append('/');
+            }
+            builder.append(position.versionPrefix()).append(versionStrings[versionIndex]).append(position.versionSuffix());
+            if (rest < path.length() && path.charAt(rest) != '/') {
+                builder.append('/');
+            }
+            builder.append(path, rest, path.length());
+
+            String versionedPath = builder.toString();
+            if (trie.resolve(httpMethod, versionedPath) >= 0) {
+                return versionedPath;
+            }
+        }
+
+        return null;
+    }
+
+    private long served(CharSequence value, int from, int to) {
+        long requested = Version.parsePackedKey(value, from, to);
+        if (requested < 0) {
+            return NO_VERSION;
+        }
+
+        boolean majorOnly = true;
+        for (int i = from; i < to; i++) {
+            if (value.charAt(i) == '.') {
+                majorOnly = false;
+                break;
+            }
+        }
+
+        // The latest served version up to the requested one, or up to the next major version for a major version alone
+        int index = Arrays.binarySearch(versions, majorOnly ? requested + NEXT_MAJOR - 1 : requested);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        if (index < 0) {
+            return UNKNOWN_VERSION;
+        }
+
+        // Same major version, or same minor version ignoring the patch of the request
+        long version = versions[index];
+        return (majorOnly ? version >= requested : requested - version < NEXT_MINOR) ? version : UNKNOWN_VERSION;
+    }
+
+    private int indexOfMediaType(CharSequence header, int from) {
+        int length = mediaTypePrefix.length();
+        for (int index = from; index + length <= header.length(); index++) {
+            if (index > 0 && header.charAt(index - 1) != ',' && !Character.isWhitespace(header.charAt(index - 1))) {
+                continue;
+            }
+
+            int i = 0;
+            while (i < length && Character.toLowerCase(header.charAt(index + i)) == mediaTypePrefix.charAt(i)) {
+                i++;
+            }
+            if (i == length) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private static boolean regionMatches(CharSequence path, int from, String prefix) {
+        if (from + prefix.length() > path.length()) {
+            return false;
+        }
+
+        for (int i = 0; i < prefix.length(); i++) {
+            if (path.charAt(from + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static int endOfVersion(CharSequence header, int from) {
+        int end = from;
+        while (end < header.length() && (Character.isDigit(header.charAt(end)) || header.charAt(end) == '.')) {
+            end++;
+        }
+
+        return end;
+    }
+
+    private static boolean isMediaTypeChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '-' || c == '.';
+    }
+
+    private static String trimSlashes(String path) {
+        int from = 0;
+        int to = path.length();
+        while (from < to && path.charAt(from) == '/') {
+            from++;
+        }
+        while (to > from && path.charAt(to - 1) == '/') {
+            to--;
+        }
+
+        return path.substring(from, to);
+    }
+
+    // Where templates have the version: the segments before it, and the version segment around $version
+    private record VersionPosition(String pathPrefix, String versionPrefix, String versionSuffix) {
+    }
+}
@@ -0,0 +1,47 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RouteTableTest {
+
+    private static final RouteTable ROUTES = new RouteTable(
+            new long[] { Version.pack(1, 0, 0), Version.pack(2, 0, 0), Version.pack(1, 0, 0), Version.pack(2, 0, 0) },
+            new String[] { "GET", "GET", "POST", "GET" },
+            new String[] { "/api/v1.0/pets", "/api/v1.0/pets", "/api/v1.0/pets", "/api/v2.0/pets" },
+            new String[] { "org.acme.PetResource#getPets", "org.acme.PetResource#getPets", "org.acme.PetResource#addPet", "org.acme.PetResource#getPets" }
+    );
+
+    @Test
+    void resolveTest() {
+        assertEquals(4, ROUTES.size());
+
+        int route = ROUTES.resolve(VersionedMethod.HttpMethod.POST, "/api/v1.0/pets", Version.parse("1.0"));
+        assertEquals(2, route);
+        assertEquals("org.acme.PetResource#addPet", ROUTES.method(route));
+        assertEquals(VersionedMethod.HttpMethod.POST, ROUTES.httpMethod(route));
+        assertEquals("/api/v1.0/pets", ROUTES.path(route));
+        assertEquals(Version.parse("1.0"), ROUTES.version(route));
+
+        assertEquals(3, ROUTES.resolve(VersionedMethod.HttpMethod.GET, "/api/v2.0/pets", Version.parse("2")));
+        assertEquals(-1, ROUTES.resolve(VersionedMethod.HttpMethod.POST, "/api/v2.0/pets", Version.parse("2.0")));
+        assertEquals(-1, ROUTES.resolve(VersionedMethod.HttpMethod.GET, "/api/v2.0/pets", Version.parse("1.0")));
+        assertEquals(-1, ROUTES.resolve(VersionedMethod.HttpMethod.GET, "/api/v3.0/pets", Version.parse("3.0")));
+
+        assertEquals(List.of(Version.parse("1.0"), Version.parse("2.0")), ROUTES.versions());
+
+        assertThrows(IllegalArgumentException.class, () -> new RouteTable(new long[1], new String[1], new String[1], new String[0]));
+    }
+
+    @Test
+    void normalizePathTest() {
+        assertEquals("/api/v1.0/pets", RouteTable.normalizePath("/api/v1.0/pets/"));
+        assertEquals("/api/v1.0/pets", RouteTable.normalizePath("api/v1.0//pets"));
+        assertEquals("/", RouteTable.normalizePath(""));
+        assertEquals("/", RouteTable.normalizePath("//"));
+    }
+}
@@ -0,0 +1,90 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RouteTrieTest {
+
+    // Sorted as RouteTable requires
+    private static final String[] PATHS = {
+            "/api/v1.0/pets",
+            "/api/v1.0/pets",
+            "/api/v1.0/pets/{id}",
+            "/api/v2.0/pets",
+            "/api/v2.0/pets/{id}",
+            "/api/v2.0/pets/{id}/owner",
+            "/health",
+    };
+    private static final String[] TEMPLATES = {
+            "/api/v$version/pets",
+            "/api/v$version/pets",
+            "/api/v$version/pets/{id}",
+            "/api/v$version/pets",
+            "/api/v$version/pets/{id}",
+            "/api/v$version/pets/{id}/owner",
+            "/health",
+    };
+    private static final RouteTable ROUTES = new RouteTable(
+            new long[] { Version.pack(1, 0, 0), Version.pack(1, 0, 0), Version.pack(1, 0, 0), Version.pack(2, 0, 0), Version.pack(2, 0, 0), Version.pack(2, 0, 0), Version.pack(1, 0, 0) },
+            new String[] { "GET", "POST", "GET", "GET", "GET", "GET", "GET" },
+            PATHS,
+            new String[] { "Pets#list", "Pets#add", "Pets#get", "Pets#list2", "Pets#get2", "Pets#owner", "Health#get" }
+    );
+    private static final RouteTrie TRIE = new RouteTrie(ROUTES, TEMPLATES);
+
+    @Test
+    void resolveTest() {
+        for (int route = 0; route < ROUTES.size(); route++) {
+            assertEquals(route, TRIE.resolve(ROUTES.httpMethod(route), PATHS[route]), PATHS[route]);
+        }
+
+        assertEquals(1, TRIE.resolve(VersionedMethod.HttpMethod.POST, "api/v1.0/pets/"));
+        assertEquals(1, TRIE.resolve("POST", "/api/v1/pets"));
+        assertEquals(4, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v2.0/pets/42"));
+        assertEquals(5, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v2.0/pets/42/owner"));
+        assertEquals(6, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/health"));
+    }
+
+    @Test
+    void noRouteTest() {
+        // Served with other methods
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve(VersionedMethod.HttpMethod.POST, "/api/v2.0/pets"));
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve("TRACE", "/api/v1.0/pets"));
+        // Not a route
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v1.0/owners"));
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/version/pets"));
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v1.0"));
+        assertEquals(RouteTrie.NO_ROUTE, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/"));
+    }
+
+    @Test
+    void unknownVersionTest() {
+        assertEquals(RouteTrie.UNKNOWN_VERSION, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v3.0/pets"));
+        assertEquals(RouteTrie.UNKNOWN_VERSION, TRIE.resolve(VersionedMethod.HttpMethod.POST, "/api/v1.5/pets"));
+        assertEquals(RouteTrie.UNKNOWN_VERSION, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v3.0/pets/42"));
+        // Versions are per path
+        assertEquals(RouteTrie.UNKNOWN_VERSION, TRIE.resolve(VersionedMethod.HttpMethod.GET, "/api/v1.0/pets/42/owner"));
+
+        assertThrows(IllegalArgumentException.class, () -> new RouteTrie(ROUTES, new String[0]));
+    }
+
+    @Test
+    void literalFallsBackToParameterTest() {
+        RouteTable routes = new RouteTable(
+                new long[] { Version.pack(1, 0, 0), Version.pack(2, 0, 0), Version.pack(2, 0, 0) },
+                new String[] { "GET", "GET", "GET" },
+                new String[] { "/v1.0/pets/{id}", "/v2.0/pets/special", "/v2.0/pets/{id}" },
+                new String[] { "Pets#get", "Pets#special", "Pets#get" }
+        );
+        RouteTrie trie = new RouteTrie(routes, new String[] { "/v$version/pets/{id}", "/v$version/pets/special", "/v$version/pets/{id}" });
+
+        // special is only a literal in 2.0, in 1.0 it's an id
+        assertEquals(0, trie.resolve(VersionedMethod.HttpMethod.GET, "/v1.0/pets/special"));
+        assertEquals(1, trie.resolve(VersionedMethod.HttpMethod.GET, "/v2.0/pets/special"));
+        assertEquals(2, trie.resolve(VersionedMethod.HttpMethod.GET, "/v2.0/pets/42"));
+        assertEquals(RouteTrie.UNKNOWN_VERSION, trie.resolve(VersionedMethod.HttpMethod.GET, "/v3.0/pets/special"));
+        assertEquals(RouteTrie.NO_ROUTE, trie.resolve(VersionedMethod.HttpMethod.POST, "/v1.0/pets/special"));
+    }
+}
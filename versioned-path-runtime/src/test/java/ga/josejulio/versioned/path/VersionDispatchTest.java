@@ -0,0 +1,27 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VersionDispatchTest {
+
+    private static final long[] VERSIONS = {
+            Version.pack(1, 0, 0),
+            Version.pack(2, 0, 0),
+            Version.pack(3, 1, 0)
+    };
+
+    @Test
+    void indexOfTest() {
+        assertEquals(0, VersionDispatch.indexOf(VERSIONS, "1.0"));
+        assertEquals(0, VersionDispatch.indexOf(VERSIONS, "1"));
+        assertEquals(2, VersionDispatch.indexOf(VERSIONS, "3.1"));
+        assertEquals(-1, VersionDispatch.indexOf(VERSIONS, "3.0"));
+        assertEquals(-1, VersionDispatch.indexOf(VERSIONS, "4.0"));
+        assertEquals(-1, VersionDispatch.indexOf(VERSIONS, "v1.0"));
+        assertEquals(-1, VersionDispatch.indexOf(VERSIONS, ""));
+        assertEquals(-1, VersionDispatch.indexOf(VERSIONS, null));
+        assertEquals(-1, VersionDispatch.indexOf(new long[0], "1.0"));
+    }
+}
@@ -0,0 +1,329 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionTest {
+
+    @Test
+    public void validVersionStringTest()  {
+        Version v = new Version("1.0.0");
+        assertEquals(1, v.getMajor());
+        assertEquals(0, v.getMinor());
+        assertEquals(0, v.getPatch());
+
+        v = new Version("1.2.0");
+        assertEquals(1, v.getMajor());
+        assertEquals(2, v.getMinor());
+        assertEquals(0, v.getPatch());
+
+        v = new Version("1.2.3");
+        assertEquals(1, v.getMajor());
+        assertEquals(2, v.getMinor());
+        assertEquals(3, v.getPatch());
+
+        v = new Version("4.8.7");
+        assertEquals(4, v.getMajor());
+        assertEquals(8, v.getMinor());
+        assertEquals(7, v.getPatch());
+
+        v = new Version("1");
+        assertEquals(1, v.getMajor());
+        assertEquals(0, v.getMinor());
+        assertEquals(0, v.getPatch());
+
+        v = new Version("1.2");
+        assertEquals(1, v.getMajor());
+        assertEquals(2, v.getMinor());
+        assertEquals(0, v.getPatch());
+    }
+
+    @Test
+    public void invalidVersionStringTest() {
+        // With negative numbers
+        assertThrows(RuntimeException.class, () -> new Version("-1.2.3"));
+        assertThrows(RuntimeException.class, () -> new Version("1.-2.3"));
+        assertThrows(RuntimeException.class, () -> new Version("1.2.-3"));
+        assertThrows(RuntimeException.class, () -> new Version("-1.-2.-3"));
+
+        // other than numbers
+        assertThrows(RuntimeException.class, () -> new Version("a.b.c"));
+        assertThrows(RuntimeException.class, () -> new Version("1.b.c"));
+        assertThrows(RuntimeException.class, () -> new Version("a.2.c"));
+        assertThrows(RuntimeException.class, () -> new Version("a.b.3"));
+    }
+
+    @Test
+    public void parseRangeTest() {
+        String path = "/api/v2.10.3/pets";
+        Version v = Version.parse(path, 6, 12);
+        assertEquals(new Version(2, 10, 3), v);
+
+        v = Version.parse(path, 6, 10);
+        assertEquals(new Version(2, 10, 0), v);
+
+        assertThrows(RuntimeException.class, () -> Version.parse(path, 5, 12));
+        assertThrows(RuntimeException.class, () -> Version.parse(path, 6, 13));
+        assertThrows(RuntimeException.class, () -> Version.parse(path, 6, 6));
+        assertNull(Version.tryParse(path, 6, 13));
+        assertNull(Version.tryParse(path, 6, 100));
+    }
+
+    @Test
+    public void semverStringTest() {
+        Version v = Version.parse("1.2.3-beta.1+build.5");
+        assertEquals(1, v.getMajor());
+        assertEquals(2, v.getMinor());
+        assertEquals(3, v.getPatch());
+        assertEquals("beta.1", v.getPreRelease());
+        assertEquals("build.5", v.getBuildMetadata());
+        assertTrue(v.isPreRelease());
+        assertEquals("1.2.3-beta.1+build.5", v.toString());
+        assertEquals("1.2", v.toMinorVersionString());
+
+        v = Version.parse("2.0+exp.sha.5114f85");
+        assertEquals("", v.getPreRelease());
+        assertEquals("exp.sha.5114f85", v.getBuildMetadata());
+        assertFalse(v.isPreRelease());
+        assertEquals("2+exp.sha.5114f85", v.toShortVersionString());
+
+        assertThrows(RuntimeException.class, () -> Version.parse("1.0.0-"));
+        assertThrows(RuntimeException.class, () -> Version.parse("1.0.0+"));
+        assertThrows(RuntimeException.class, () -> Version.parse("1.0.0-alpha..1"));
+        assertThrows(RuntimeException.class, () -> Version.parse("1.0.0-alpha_1"));
+        assertThrows(RuntimeException.class, () -> Version.parse("1.0.0.0"));
+        assertThrows(RuntimeException.class, () -> Version.parse("1."));
+        assertThrows(RuntimeException.class, () -> Version.parse("99999999999"));
+    }
+
+    @Test
+    public void semverPrecedenceTest() {
+        List<Version> expected = Stream.of(
+                "1.0.0-alpha",
+                "1.0.0-alpha.1",
+                "1.0.0-alpha.beta",
+                "1.0.0-beta",
+                "1.0.0-beta.2",
+                "1.0.0-beta.11",
+                "1.0.0-rc.1",
+                "1.0.0",
+                "1.0.1"
+        ).map(Version::parse).collect(Collectors.toList());
+
+        for (int i = 0; i < expected.size() - 1; ++i) {
+            symmetryCompareTest(expected.get(i), expected.get(i + 1));
+        }
+
+        // Build metadata does not affect the precedence
+        assertEquals(0, Version.parse("1.0.0+a").compareTo(Version.parse("1.0.0+b")));
+        assertEquals(Version.parse("1.0.0-rc.1+a"), Version.parse("1.0.0-rc.1+b"));
+    }
+
+    @Test
+    public void internTest() {
+        Version v = Version.of(1, 2, 0);
+        assertSame(v, Version.of(1, 2, 0));
+        assertSame(v, Version.parse("1.2"));
+        assertSame(v, Version.parse("/api/v1.2.0/", 6, 11));
+        assertSame(Version.parse("1.2.0-rc.1"), Version.of(1, 2, 0, "rc.1", ""));
+
+        // Untrusted input is only looked up
+        assertSame(v, Version.tryParse("/api/v1.2/", 6, 9));
+        Version parsed = Version.tryParse("/api/v901.2.3/", 6, 13);
+        assertEquals(Version.of(901, 2, 3), parsed);
+        assertNotSame(parsed, Version.tryParse("/api/v901.2.3/", 6, 13));
+        assertSame(Version.of(901, 2, 3), Version.tryParse("/api/v901.2.3/", 6, 13));
+
+        // Constructors always create a new instance
+        assertNotSame(v, new Version(1, 2, 0));
+        assertEquals(v, new Version(1, 2, 0));
+
+        assertSame(v.toString(), v.toString());
+        assertSame(v.toMinorVersionString(), v.toMinorVersionString());
+        assertSame(v.toShortVersionString(), v.toShortVersionString());
+    }
+
+    @Test
+    public void packedKeyTest() {
+        Version v = Version.of(1, 2, 3);
+        assertEquals(Version.pack(1, 2, 3), v.getPackedKey());
+        assertSame(v, Version.fromPackedKey(v.getPackedKey()));
+
+        assertEquals(v.getPackedKey(), Version.parsePackedKey("/api/v1.2.3/", 6, 11));
+        assertEquals(Version.pack(1, 2, 0), Version.parsePackedKey("1.2", 0, 3));
+        assertEquals(-1, Version.parsePackedKey("1.2.3-rc.1", 0, 10));
+        assertEquals(-1, Version.parsePackedKey("1.a", 0, 3));
+        assertEquals(-1, Version.parsePackedKey("1.2", 0, 4));
+
+        // Packed keys sort like the versions
+        List<Version> sorted = List.of(Version.of(1, 0, 0), Version.of(1, 0, 1), Version.of(1, 1, 0), Version.of(2, 0, 0), Version.of(Version.MAX_COMPONENT, 0, 0));
+        for (int i = 0; i < sorted.size() - 1; ++i) {
+            assertTrue(sorted.get(i).getPackedKey() < sorted.get(i + 1).getPackedKey());
+        }
+
+        assertEquals(Version.MAX_COMPONENT, Version.of(Version.MAX_COMPONENT, Version.MAX_COMPONENT, Version.MAX_COMPONENT).getPatch());
+        assertThrows(RuntimeException.class, () -> Version.of(Version.MAX_COMPONENT + 1, 0, 0));
+        assertThrows(RuntimeException.class, () -> Version.parse("1.2097152"));
+    }
+
+    @Test
+    public void hashCodeTest() {
+        assertNotEquals(Version.of(1, 2, 0).hashCode(), Version.of(1, 0, 2).hashCode());
+
+        Set<Integer> hashes = new HashSet<>();
+        for (int major = 0; major < 20; ++major) {
+            for (int minor = 0; minor < 20; ++minor) {
+                for (int patch = 0; patch < 20; ++patch) {
+                    assertTrue(hashes.add(new Version(major, minor, patch).hashCode()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void toStringTest() {
+        assertEquals(
+                "1.0.0",
+                new Version("1.0.0").toString()
+        );
+
+        assertEquals(
+                "1.2.0",
+                new Version("1.2.0").toString()
+        );
+
+        assertEquals(
+                "1.2.3",
+                new Version("1.2.3").toString()
+        );
+    }
+
+    @Test
+    public void toShortVersionStringTest() {
+        assertEquals(
+                "1",
+                new Version("1.0.0").toShortVersionString()
+        );
+
+        assertEquals(
+                "1.2",
+                new Version("1.2.0").toShortVersionString()
+        );
+
+        assertEquals(
+                "1.2.3",
+                new Version("1.2.3").toShortVersionString()
+        );
+    }
+
+    @Test
+    public void compareSortTest() {
+        Version v1 = new Version(1, 0, 0);
+        Version v2 = new Version(2, 0, 0);
+        Version v1_0_1 = new Version(1, 0, 1);
+        Version v1_1 = new Version(1, 1, 0);
+        Version v1_1_1 = new Version(1, 1, 1);
+        Version v3_0_1 = new Version(3, 0, 1);
+
+        assertEquals(
+                List.of(v1, v1_0_1, v1_1, v1_1_1, v2, v3_0_1),
+                List.of(v3_0_1, v1_1, v1, v2, v1_0_1, v1_1_1).stream().sorted().collect(Collectors.toList())
+        );
+    }
+
+    @Test
+    public void compareTest() {
+        Version v1 = new Version(1, 0, 0);
+        Version v2 = new Version(2, 0, 0);
+
+        Version v1_1 = new Version(1, 1, 0);
+        Version v1_2 = new Version(1, 2, 0);
+
+        Version v1_1_1 = new Version(1, 1, 1);
+        Version v1_1_5 = new Version(1, 1, 5);
+
+        symmetryCompareTest(v1, v1_1);
+        symmetryCompareTest(v1, v1_1_1);
+        symmetryCompareTest(v1, v1_1_5);
+        symmetryCompareTest(v1, v1_2);
+        symmetryCompareTest(v1, v2);
+
+        symmetryCompareTest(v1_1, v1_1_1);
+        symmetryCompareTest(v1_1, v1_1_5);
+        symmetryCompareTest(v1_1, v1_2);
+        symmetryCompareTest(v1_1, v2);
+
+        symmetryCompareTest(v1_1_1, v1_1_5);
+        symmetryCompareTest(v1_1_1, v1_2);
+        symmetryCompareTest(v1_1_1, v2);
+
+        symmetryCompareTest(v1_1_5, v1_2);
+        symmetryCompareTest(v1_1_5, v2);
+
+        symmetryCompareTest(v1_2, v2);
+    }
+
+    @Test
+    public void equalTest() {
+        assertEquals(
+                new Version(1, 2, 3),
+                new Version("1.2.3")
+        );
+
+        assertEquals(
+                new Version(4, 0, 1),
+                new Version("4.0.1")
+        );
+
+        assertEquals(
+                new Version(9, 0, 0),
+                new Version("9.0.0")
+        );
+
+        assertNotEquals(
+                new Version(1, 0, 0),
+                new Version(1, 0, 1)
+        );
+
+        assertNotEquals(
+                new Version(1, 0, 0),
+                new Version(1, 5, 0)
+        );
+    }
+
+    void symmetryCompareTest(Version shouldBeLess, Version shouldBeGreat) {
+        assertEquals(
+                -1,
+                shouldBeLess.compareTo(shouldBeGreat)
+        );
+
+        assertEquals(
+                1,
+                shouldBeGreat.compareTo(shouldBeLess)
+        );
+
+        assertEquals(
+                0,
+                shouldBeGreat.compareTo(shouldBeGreat)
+        );
+
+        assertEquals(
+                0,
+                shouldBeLess.compareTo(shouldBeLess)
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package ga.josejulio.versioned.path.runtime;
+
+import ga.josejulio.versioned.path.RouteTable;
+import ga.josejulio.versioned.path.Version;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.UriInfo;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class VersionNegotiationFilterTest {
+
+    private static final long V1_0 = Version.pack(1, 0, 0);
+    private static final long V2_0 = Version.pack(2, 0, 0);
+    private static final long V4_0 = Version.pack(4, 0, 0);
+
+    // Filters of two packages, pets only serves 1.0 and 2.0, and orders only 4.0
+    private static final VersionNegotiationFilter PETS_FILTER = new VersionNegotiationFilter(
+            new RouteTable(
+                    new long[] { V1_0, V2_0, V2_0 },
+                    new String[] { "GET", "GET", "GET" },
+                    new String[] { "/api/v1.0/pets", "/api/v2.0/pets", "/health" },
+                    new String[] { "Pets#list", "Pets#list", "Health#get" }
+            ),
+            new String[] { "/api/v$version/pets", "/api/v$version/pets", "/health" },
+            "acme"
+    );
+    private static final VersionNegotiationFilter ORDERS_FILTER = new VersionNegotiationFilter(
+            new RouteTable(
+                    new long[] { V4_0 },
+                    new String[] { "GET" },
+                    new String[] { "/shop/v4.0/orders" },
+                    new String[] { "Orders#list" }
+            ),
+            new String[] { "/shop/v$version/orders" },
+            "acme"
+    );
+
+    @Test
+    void unrelatedPathTest() {
+        // Clients sending the header on every request still reach the other endpoints
+        assertEquals(List.of(), filter(PETS_FILTER, "/status", Map.of(VersionNegotiationFilter.ACCEPT_VERSION, "9")));
+        assertEquals(List.of(), filter(PETS_FILTER, "/health", Map.of(VersionNegotiationFilter.ACCEPT_VERSION, "9")));
+        assertEquals(List.of(), filter(PETS_FILTER, "/status", Map.of(HttpHeaders.ACCEPT, "application/vnd.acme.v9+json")));
+    }
+
+    @Test
+    void otherPackageTest() {
+        // Each filter leaves the versions it doesn't serve to the filter of the other package
+        assertEquals(List.of(), filter(PETS_FILTER, "/shop/orders", Map.of(VersionNegotiationFilter.ACCEPT_VERSION, "4")));
+        assertEquals(List.of(), filter(ORDERS_FILTER, "/api/pets", Map.of(VersionNegotiationFilter.ACCEPT_VERSION, "2.0")));
+        assertEquals(List.of(), filter(ORDERS_FILTER, "/api/pets", Map.of(HttpHeaders.ACCEPT, "application/vnd.acme.v1+json")));
+    }
+
+    // Runs the filter on a GET request, returning the calls that abort or rewrite it
+    private static List<String> filter(VersionNegotiationFilter filter, String path, Map<String, String> headers) {
+        UriInfo uriInfo = stub(UriInfo.class, (name, args) -> switch (name) {
+            case "getPath" -> path;
+            default -> throw new UnsupportedOperationException(name);
+        });
+
+        List<String> calls = new ArrayList<>();
+        ContainerRequestContext requestContext = stub(ContainerRequestContext.class, (name, args) -> switch (name) {
+            case "getUriInfo" -> uriInfo;
+            case "getMethod" -> "GET";
+            case "getHeaderString" -> headers.get((String) args[0]);
+            case "abortWith", "setRequestUri", "getHeaders" -> {
+                calls.add(name);
+                throw new UnsupportedOperationException(name);
+            }
+            default -> throw new UnsupportedOperationException(name);
+        });
+
+        try {
+            filter.filter(requestContext);
+        } catch (UnsupportedOperationException ignored) {
+            // Recorded in the calls
+        }
+
+        return calls;
+    }
+
+    private interface Answer {
+        Object answer(String name, Object[] args);
+    }
+
+    private static <T> T stub(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(
+                type.getClassLoader(),
+                new Class<?>[] { type },
+                (proxy, method, args) -> answer.answer(method.getName(), args)
+        ));
+    }
+}
@@ -0,0 +1,110 @@
+package ga.josejulio.versioned.path.runtime;
+
+import ga.josejulio.versioned.path.RouteTable;
+import ga.josejulio.versioned.path.Version;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionNegotiatorTest {
+
+    private static final long V1_0 = Version.pack(1, 0, 0);
+    private static final long V2_0 = Version.pack(2, 0, 0);
+    private static final long V2_5 = Version.pack(2, 5, 0);
+    private static final long V3_1 = Version.pack(3, 1, 0);
+
+    // Sorted as RouteTable requires
+    private static final RouteTable ROUTES = new RouteTable(
+            new long[] { V1_0, V1_0, V2_0, V2_5, V2_5, V3_1, V3_1 },
+            new String[] { "GET", "POST", "GET", "GET", "GET", "GET", "GET" },
+            new String[] { "/api/v1.0/pets", "/api/v1.0/pets", "/api/v2.0/pets", "/api/v2.5/pets", "/api/v2.5/pets/{id}", "/api/v3.1/pets", "/health" },
+            new String[] { "Pets#list", "Pets#add", "Pets#list", "Pets#list", "Pets#get", "Pets#list", "Health#get" }
+    );
+    private static final String[] TEMPLATES = {
+            "/api/v$version/pets", "/api/v$version/pets", "/api/v$version/pets", "/api/v$version/pets", "/api/v$version/pets/{id}", "/api/v$version/pets", "/health"
+    };
+    private static final VersionNegotiator NEGOTIATOR = new VersionNegotiator(ROUTES, TEMPLATES, "acme");
+
+    @Test
+    void fromAcceptVersionTest() {
+        assertArrayEquals(new long[] { V1_0, V2_0, V2_5, V3_1 }, NEGOTIATOR.versions());
+
+        assertEquals(V2_0, NEGOTIATOR.fromAcceptVersion("2.0"));
+        assertEquals(V2_5, NEGOTIATOR.fromAcceptVersion(" 2.5 "));
+        assertEquals(V2_5, NEGOTIATOR.fromAcceptVersion("2.5.3"));
+        // The latest minor version
+        assertEquals(V2_5, NEGOTIATOR.fromAcceptVersion("2"));
+        assertEquals(V3_1, NEGOTIATOR.fromAcceptVersion("3"));
+
+        assertEquals(VersionNegotiator.UNKNOWN_VERSION, NEGOTIATOR.fromAcceptVersion("2.1"));
+        assertEquals(VersionNegotiator.UNKNOWN_VERSION, NEGOTIATOR.fromAcceptVersion("3.0"));
+        assertEquals(VersionNegotiator.UNKNOWN_VERSION, NEGOTIATOR.fromAcceptVersion("0.9"));
+        assertEquals(VersionNegotiator.UNKNOWN_VERSION, NEGOTIATOR.fromAcceptVersion("4"));
+
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromAcceptVersion(null));
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromAcceptVersion(""));
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromAcceptVersion("latest"));
+    }
+
+    @Test
+    void fromMediaTypeTest() {
+        assertEquals(V2_5, NEGOTIATOR.fromMediaType("application/vnd.acme.v2+json"));
+        assertEquals(V2_0, NEGOTIATOR.fromMediaType("text/plain;q=0.5, Application/VND.Acme.v2.0+json;q=0.9"));
+        assertEquals(V1_0, NEGOTIATOR.fromMediaType("application/vnd.acme.v1"));
+        assertEquals(VersionNegotiator.UNKNOWN_VERSION, NEGOTIATOR.fromMediaType("application/vnd.acme.v7+json"));
+
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromMediaType(null));
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromMediaType("application/json"));
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromMediaType("application/vnd.other.v2+json"));
+        assertEquals(VersionNegotiator.NO_VERSION, NEGOTIATOR.fromMediaType("application/vnd.acme.vnext+json"));
+    }
+
+    @Test
+    void withoutVendorMediaTypesTest() {
+        assertEquals("application/json", NEGOTIATOR.withoutVendorMediaTypes("application/vnd.acme.v2+json"));
+        assertEquals("text/plain;q=0.5, application/json;q=0.9", NEGOTIATOR.withoutVendorMediaTypes("text/plain;q=0.5, application/vnd.acme.v2.0+json;q=0.9"));
+        assertEquals("*/*", NEGOTIATOR.withoutVendorMediaTypes("application/vnd.acme.v1"));
+        assertEquals("application/json", NEGOTIATOR.withoutVendorMediaTypes("application/json"));
+    }
+
+    @Test
+    void versionedPathTest() {
+        assertEquals("/api/v2.0/pets", NEGOTIATOR.versionedPath("GET", "/api/pets", V2_0));
+        assertEquals("/api/v1.0/pets/", NEGOTIATOR.versionedPath("POST", "api/pets/", V1_0));
+        assertEquals("/api/v2.5/pets/42", NEGOTIATOR.versionedPath("GET", "/api/pets/42", V2_5));
+
+        // Not served in that version or with that method
+        assertNull(NEGOTIATOR.versionedPath("GET", "/api/pets/42", V2_0));
+        assertNull(NEGOTIATOR.versionedPath("POST", "/api/pets", V3_1));
+        // Not a route
+        assertNull(NEGOTIATOR.versionedPath("GET", "/api/owners", V2_0));
+        assertNull(NEGOTIATOR.versionedPath("GET", "/apis/pets", V2_0));
+        assertNull(NEGOTIATOR.versionedPath("GET", "/api/pets", VersionNegotiator.UNKNOWN_VERSION));
+    }
+
+    @Test
+    void isNegotiableTest() {
+        assertTrue(NEGOTIATOR.isNegotiable("GET", "/api/pets"));
+        assertTrue(NEGOTIATOR.isNegotiable("POST", "/api/pets"));
+        assertTrue(NEGOTIATOR.isNegotiable("GET", "/api/pets/42"));
+
+        assertFalse(NEGOTIATOR.isNegotiable("DELETE", "/api/pets"));
+        assertFalse(NEGOTIATOR.isNegotiable("GET", "/api/owners"));
+        assertFalse(NEGOTIATOR.isNegotiable("GET", "/status"));
+        // Not versioned
+        assertFalse(NEGOTIATOR.isNegotiable("GET", "/health"));
+    }
+
+    @Test
+    void isRouteTest() {
+        assertTrue(NEGOTIATOR.isRoute("GET", "/api/v2.0/pets"));
+        assertTrue(NEGOTIATOR.isRoute("GET", "/health"));
+        // A version that is not served is not negotiated either
+        assertTrue(NEGOTIATOR.isRoute("GET", "/api/v9.0/pets"));
+        assertFalse(NEGOTIATOR.isRoute("GET", "/api/pets"));
+    }
+}
@@ -0,0 +1,415 @@
+package ga.josejulio.versioned.path;
+
+import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessingException;
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.SimpleAnnotationValueVisitor14;
+import javax.lang.model.util.Types;
+import java.lang.annotation.Annotation;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Subclass of a class element written directly as a class file, the bytecode counterpart of the
+ * {@code extendFromClass}, {@code copyAnnotations} and {@code overrideMethod} of the code model toolkit.
+ * <p>
+ * Nothing is written until {@link #toByteArray()}, so (as with code model) annotations can still be added to a method
+ * after overriding it.
+ */
+class BytecodeClass {
+
+    private final Elements elements;
+    private final Types types;
+    private final int classFileVersion;
+    private final String internalName;
+    private final String superInternalName;
+    private final Annotations annotations = new Annotations();
+    private final List<OverriddenMethod> methods = new ArrayList<>();
+
+    BytecodeClass(Elements elements, Types types, int classFileVersion, String className, Element superClass) {
+        if (!superClass.getKind().isClass()) {
+            throw new AnnotationProcessingException("Unable to extend from non class: " + superClass.getSimpleName());
+        }
+
+        this.elements = elements;
+        this.types = types;
+        this.classFileVersion = classFileVersion;
+        this.internalName = className.replace('.', '/');
+        this.superInternalName = toInternalName((TypeElement) superClass);
+
+        // The constructor only calls super(), as javac would with the code model sources
+        if (!hasAccessibleNoArgConstructor((TypeElement) superClass, className)) {
+            throw new AnnotationProcessingException(
+                    "Unable to extend from %s, it has no accessible constructor without parameters".formatted(superClass.getSimpleName())
+            );
+        }
+    }
+
+    private boolean hasAccessibleNoArgConstructor(TypeElement superClass, String className) {
+        // Inner classes take their outer instance
+        if (superClass.getNestingKind().isNested() && !superClass.getModifiers().contains(Modifier.STATIC)) {
+            return false;
+        }
+
+        String packageName = elements.getPackageOf(superClass).getQualifiedName().toString();
+        int lastDot = className.lastIndexOf('.');
+        boolean samePackage = packageName.equals(lastDot < 0 ? "" : className.substring(0, lastDot));
+
+        for (ExecutableElement constructor: ElementFilter.constructorsIn(superClass.getEnclosedElements())) {
+            Set<Modifier> modifiers = constructor.getModifiers();
+            if (constructor.getParameters().isEmpty() && !modifiers.contains(Modifier.PRIVATE)
+                    && (samePackage || modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.PROTECTED))) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static int toClassFileVersion(SourceVersion sourceVersion) {
+        // Java 8 is class file version 52, every release after it adds one
+        return Math.max(Opcodes.V1_8, sourceVersion.ordinal() + 44);
+    }
+
+    void copyAnnotations(Element from, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        annotations.copy(from, ignoredAnnotations);
+    }
+
+    void annotate(Class<? extends Annotation> annotation, String value) {
+        annotations.add(annotation, value);
+    }
+
+    OverriddenMethod overrideMethod(ExecutableElement method, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+        OverriddenMethod overriddenMethod = new OverriddenMethod(method, ignoredAnnotations);
+        methods.add(overriddenMethod);
+        return overriddenMethod;
+    }
+
+    byte[] toByteArray() {
+        // Only straight-line code is written, stack map frames are not needed
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        classWriter.visit(classFileVersion, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER, internalName, null, superInternalName, null);
+        annotations.write(classWriter::visitAnnotation);
+
+        MethodVisitor constructor = classWriter.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+        constructor.visitCode();
+        constructor.visitVarInsn(Opcodes.ALOAD, 0);
+        constructor.visitMethodInsn(Opcodes.INVOKESPECIAL, superInternalName, "<init>", "()V", false);
+        constructor.visitInsn(Opcodes.RETURN);
+        constructor.visitMaxs(0, 0);
+        constructor.visitEnd();
+
+        for (OverriddenMethod method: methods) {
+            method.write(classWriter);
+        }
+
+        classWriter.visitEnd();
+        return classWriter.toByteArray();
+    }
+
+    class OverriddenMethod {
+        private final ExecutableElement method;
+        private final Annotations annotations = new Annotations();
+        private final List<Annotations> parameterAnnotations = new ArrayList<>();
+
+        private OverriddenMethod(ExecutableElement method, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+            this.method = method;
+            annotations.copy(method, ignoredAnnotations);
+
+            for (VariableElement parameter: method.getParameters()) {
+                Annotations annotations = new Annotations();
+                annotations.copy(parameter, ignoredAnnotations);
+                parameterAnnotations.add(annotations);
+            }
+        }
+
+        void annotate(Class<? extends Annotation> annotation, String value) {
+            annotations.add(annotation, value);
+        }
+
+        private void write(ClassWriter classWriter) {
+            String descriptor = toMethodDescriptor();
+            String[] exceptions = method.getThrownTypes()
+                    .stream()
+                    .map(thrownType -> toInternalName((TypeElement) ((DeclaredType) types.erasure(thrownType)).asElement()))
+                    .toArray(String[]::new);
+
+            MethodVisitor methodVisitor = classWriter.visitMethod(
+                    toAccess(method.getModifiers()) | (method.isVarArgs() ? Opcodes.ACC_VARARGS : 0),
+                    method.getSimpleName().toString(),
+                    descriptor,
+                    toMethodSignature(),
+                    exceptions.length > 0 ? exceptions : null
+            );
+
+            for (VariableElement parameter: method.getParameters()) {
+                methodVisitor.visitParameter(parameter.getSimpleName().toString(), 0);
+            }
+
+            annotations.write(methodVisitor::visitAnnotation);
+            for (int i = 0; i < parameterAnnotations.size(); ++i) {
+                final int parameter = i;
+                parameterAnnotations.get(i).write((annotationDescriptor, visible) -> methodVisitor.visitParameterAnnotation(parameter, annotationDescriptor, visible));
+            }
+
+            // return super.method(parameters...)
+            methodVisitor.visitCode();
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+
+            int slot = 1;
+            for (Type parameterType: Type.getArgumentTypes(descriptor)) {
+                methodVisitor.visitVarInsn(parameterType.getOpcode(Opcodes.ILOAD), slot);
+                slot += parameterType.getSize();
+            }
+
+            methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, superInternalName, method.getSimpleName().toString(), descriptor, false);
+            methodVisitor.visitInsn(Type.getReturnType(descriptor).getOpcode(Opcodes.IRETURN));
+            methodVisitor.visitMaxs(0, 0);
+            methodVisitor.visitEnd();
+        }
+
+        private String toMethodDescriptor() {
+            return method.getParameters()
+                    .stream()
+                    .map(parameter -> toDescriptor(parameter.asType()))
+                    .collect(Collectors.joining("", "(", ")")) + toDescriptor(method.getReturnType());
+        }
+
+        // Generic signature, only needed when the erased descriptor loses information (e.g. List<Pet>)
+        private String toMethodSignature() {
+            List<TypeMirror> signatureTypes = new ArrayList<>();
+            signatureTypes.add(method.getReturnType());
+            method.getParameters().forEach(parameter -> signatureTypes.add(parameter.asType()));
+            signatureTypes.addAll(method.getThrownTypes());
+
+            if (method.getTypeParameters().isEmpty() && signatureTypes.stream().allMatch(type -> types.isSameType(type, types.erasure(type)))) {
+                return null;
+            }
+
+            StringBuilder signature = new StringBuilder();
+            if (!method.getTypeParameters().isEmpty()) {
+                signature.append('<');
+                for (TypeParameterElement typeParameter: method.getTypeParameters()) {
+                    signature.append(typeParameter.getSimpleName());
+                    for (TypeMirror bound: typeParameter.getBounds()) {
+                        // Interface bounds use an empty class bound: T::Ljava/lang/Comparable;
+                        boolean isInterface = bound instanceof DeclaredType declaredType && declaredType.asElement().getKind().isInterface();
+                        signature.append(isInterface ? "::" : ":").append(toSignature(bound));
+                    }
+                }
+                signature.append('>');
+            }
+
+            signature.append('(');
+            method.getParameters().forEach(parameter -> signature.append(toSignature(parameter.asType())));
+            signature.append(')').append(toSignature(method.getReturnType()));
+            method.getThrownTypes().forEach(thrownType -> signature.append('^').append(toSignature(thrownType)));
+
+            return signature.toString();
+        }
+    }
+
+    private String toInternalName(TypeElement typeElement) {
+        return elements.getBinaryName(typeElement).toString().replace('.', '/');
+    }
+
+    private String toDescriptor(TypeMirror typeMirror) {
+        TypeMirror erased = types.erasure(typeMirror);
+        return switch (erased.getKind()) {
+            case ARRAY -> "[" + toDescriptor(((ArrayType) erased).getComponentType());
+            case DECLARED -> "L" + toInternalName((TypeElement) ((DeclaredType) erased).asElement()) + ";";
+            default -> toPrimitiveDescriptor(erased);
+        };
+    }
+
+    private String toSignature(TypeMirror typeMirror) {
+        if (typeMirror instanceof DeclaredType declaredType) {
+            StringBuilder signature = new StringBuilder("L").append(toInternalName((TypeElement) declaredType.asElement()));
+            if (!declaredType.getTypeArguments().isEmpty()) {
+                signature.append('<');
+                declaredType.getTypeArguments().forEach(typeArgument -> signature.append(toSignature(typeArgument)));
+                signature.append('>');
+            }
+
+            return signature.append(';').toString();
+        } else if (typeMirror instanceof ArrayType arrayType) {
+            return "[" + toSignature(arrayType.getComponentType());
+        } else if (typeMirror instanceof TypeVariable typeVariable) {
+            return "T" + typeVariable.asElement().getSimpleName() + ";";
+        } else if (typeMirror instanceof WildcardType wildcardType) {
+            if (wildcardType.getExtendsBound() != null) {
+                return "+" + toSignature(wildcardType.getExtendsBound());
+            } else if (wildcardType.getSuperBound() != null) {
+                return "-" + toSignature(wildcardType.getSuperBound());
+            }
+
+            return "*";
+        }
+
+        return toPrimitiveDescriptor(typeMirror);
+    }
+
+    private String toPrimitiveDescriptor(TypeMirror typeMirror) {
+        return switch (typeMirror.getKind()) {
+            case BOOLEAN -> "Z";
+            case BYTE -> "B";
+            case CHAR -> "C";
+            case SHORT -> "S";
+            case INT -> "I";
+            case LONG -> "J";
+            case FLOAT -> "F";
+            case DOUBLE -> "D";
+            case VOID -> "V";
+            default -> throw new AnnotationProcessingException("Unexpected type mirror: " + typeMirror);
+        };
+    }
+
+    private int toAccess(Set<Modifier> modifiers) {
+        int access = 0;
+        for (Modifier modifier: modifiers) {
+            access |= switch (modifier) {
+                case PUBLIC -> Opcodes.ACC_PUBLIC;
+                case PROTECTED -> Opcodes.ACC_PROTECTED;
+                case PRIVATE -> Opcodes.ACC_PRIVATE;
+                case FINAL -> Opcodes.ACC_FINAL;
+                case STATIC -> Opcodes.ACC_STATIC;
+                case SYNCHRONIZED -> Opcodes.ACC_SYNCHRONIZED;
+                case STRICTFP -> Opcodes.ACC_STRICT;
+                default -> throw new AnnotationProcessingException("Modifier not supported: " + modifier);
+            };
+        }
+
+        return access;
+    }
+
+    private interface AnnotationVisitorFactory {
+        AnnotationVisitor visitAnnotation(String descriptor, boolean visible);
+    }
+
+    // Copied annotation mirrors and added annotations (with an optional "value"), in the order they were added
+    private class Annotations {
+        private final List<Object> annotations = new ArrayList<>();
+
+        void copy(Element from, Collection<Class<? extends Annotation>> ignoredAnnotations) {
+            Set<String> ignoredAnnotationNames = ignoredAnnotations.stream().map(Class::getCanonicalName).collect(Collectors.toSet());
+            for (AnnotationMirror annotationMirror: from.getAnnotationMirrors()) {
+                TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+                if (!ignoredAnnotationNames.contains(annotationElement.getQualifiedName().toString())) {
+                    annotations.add(annotationMirror);
+                }
+            }
+        }
+
+        void add(Class<? extends Annotation> annotation, String value) {
+            annotations.add(new AddedAnnotation(annotation, value));
+        }
+
+        void write(AnnotationVisitorFactory visitorFactory) {
+            for (Object annotation: annotations) {
+                if (annotation instanceof AnnotationMirror annotationMirror) {
+                    TypeElement annotationElement = (TypeElement) annotationMirror.getAnnotationType().asElement();
+                    Retention retention = annotationElement.getAnnotation(Retention.class);
+                    RetentionPolicy retentionPolicy = retention != null ? retention.value() : RetentionPolicy.CLASS;
+                    if (retentionPolicy == RetentionPolicy.SOURCE) {
+                        continue;
+                    }
+
+                    AnnotationVisitor annotationVisitor = visitorFactory.visitAnnotation(
+                            toDescriptor(annotationMirror.getAnnotationType()),
+                            retentionPolicy == RetentionPolicy.RUNTIME
+                    );
+                    writeAnnotationValues(annotationVisitor, annotationMirror);
+                } else if (annotation instanceof AddedAnnotation addedAnnotation) {
+                    Retention retention = addedAnnotation.type().getAnnotation(Retention.class);
+                    AnnotationVisitor annotationVisitor = visitorFactory.visitAnnotation(
+                            Type.getDescriptor(addedAnnotation.type()),
+                            retention != null && retention.value() == RetentionPolicy.RUNTIME
+                    );
+
+                    if (addedAnnotation.value() != null) {
+                        annotationVisitor.visit("value", addedAnnotation.value());
+                    }
+
+                    annotationVisitor.visitEnd();
+                }
+            }
+        }
+    }
+
+    private record AddedAnnotation(Class<? extends Annotation> type, String value) {
+    }
+
+    private void writeAnnotationValues(AnnotationVisitor annotationVisitor, AnnotationMirror annotationMirror) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry: annotationMirror.getElementValues().entrySet()) {
+            writeAnnotationValue(annotationVisitor, entry.getKey().getSimpleName().toString(), entry.getValue());
+        }
+
+        annotationVisitor.visitEnd();
+    }
+
+    private void writeAnnotationValue(AnnotationVisitor annotationVisitor, String name, AnnotationValue annotationValue) {
+        annotationValue.accept(new SimpleAnnotationValueVisitor14<Void, Void>() {
+            @Override
+            protected Void defaultAction(Object value, Void unused) {
+                // Primitives and strings
+                annotationVisitor.visit(name, value);
+                return null;
+            }
+
+            @Override
+            public Void visitType(TypeMirror typeMirror, Void unused) {
+                annotationVisitor.visit(name, Type.getType(toDescriptor(typeMirror)));
+                return null;
+            }
+
+            @Override
+            public Void visitEnumConstant(VariableElement enumConstant, Void unused) {
+                annotationVisitor.visitEnum(name, toDescriptor(enumConstant.getEnclosingElement().asType()), enumConstant.getSimpleName().toString());
+                return null;
+            }
+
+            @Override
+            public Void visitAnnotation(AnnotationMirror annotationMirror, Void unused) {
+                writeAnnotationValues(annotationVisitor.visitAnnotation(name, toDescriptor(annotationMirror.getAnnotationType())), annotationMirror);
+                return null;
+            }
+
+            @Override
+            public Void visitArray(List<? extends AnnotationValue> values, Void unused) {
+                AnnotationVisitor arrayVisitor = annotationVisitor.visitArray(name);
+                for (AnnotationValue value: values) {
+                    writeAnnotationValue(arrayVisitor, null, value);
+                }
+
+                arrayVisitor.visitEnd();
+                return null;
+            }
+        }, null);
+    }
+}
@@ -0,0 +1,231 @@
+package ga.josejulio.versioned.path;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.VariableElement;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of the sources generated for a {@link VersionedPath} class.
+ * Entries are keyed by a hash of everything the generated sources depend on (the class, its versioned methods,
+ * their signatures and annotations), so a hit can re-emit the previous sources without building them again.
+ */
+class GenerationCache {
+
+    // Bump whenever the generated output changes for the same input
+    private static final String FORMAT_VERSION = "3";
+    private static final String SOURCE_EXTENSION = ".java";
+    // Entries of other processor versions are never used
+    static final String PROCESSOR_VERSION = readProcessorVersion();
+
+    private final Path directory;
+    // Processor options that change the generated sources, empty if none
+    private final String configuration;
+
+    GenerationCache(Path directory) {
+        this(directory, "");
+    }
+
+    GenerationCache(Path directory, String configuration) {
+        this.directory = directory;
+        this.configuration = configuration;
+    }
+
+    String computeKey(Element classElement) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException noSuchAlgorithmException) {
+            throw new RuntimeException("SHA-256 is not available", noSuchAlgorithmException);
+        }
+
+        update(digest, FORMAT_VERSION);
+        update(digest, PROCESSOR_VERSION);
+        if (!configuration.isEmpty()) {
+            update(digest, configuration);
+        }
+        update(digest, classElement.asType().toString());
+        update(digest, classElement.getModifiers().toString());
+        updateAnnotations(digest, classElement);
+
+        for (Element element: classElement.getEnclosedElements()) {
+            if (!element.getKind().equals(ElementKind.METHOD) ||
+                    (element.getAnnotation(VersionedPath.class) == null && element.getAnnotation(VersionedMethod.class) == null)) {
+                continue;
+            }
+
+            ExecutableElement method = (ExecutableElement) element;
+            update(digest, method.getModifiers().toString());
+            update(digest, method.getTypeParameters().toString());
+            update(digest, method.getReturnType().toString());
+            update(digest, method.getSimpleName().toString());
+            updateAnnotations(digest, method);
+
+            for (VariableElement parameter: method.getParameters()) {
+                update(digest, parameter.asType().toString());
+                update(digest, parameter.getSimpleName().toString());
+                updateAnnotations(digest, parameter);
+            }
+
+            update(digest, method.getThrownTypes().toString());
+        }
+
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String readProcessorVersion() {
+        try (InputStream inputStream = GenerationCache.class.getResourceAsStream("versioned-path.properties")) {
+            if (inputStream == null) {
+                throw new RuntimeException("versioned-path.properties is missing from the processor");
+            }
+
+            Properties properties = new Properties();
+            properties.load(inputStream);
+            return properties.getProperty("version");
+        } catch (IOException ioException) {
+            throw new RuntimeException("Unable to read the processor version", ioException);
+        }
+    }
+
+    Map<String, byte[]> read(String key) throws IOException {
+        Path entry = directory.resolve(key);
+        if (!Files.isDirectory(entry)) {
+            return null;
+        }
+
+        Map<String, byte[]> sources = new TreeMap<>();
+        try (Stream<Path> files = Files.list(entry)) {
+            for (Path file: (Iterable<Path>) files::iterator) {
+                String fileName = file.getFileName().toString();
+                sources.put(fileName.substring(0, fileName.length() - SOURCE_EXTENSION.length()), Files.readAllBytes(file));
+            }
+        }
+
+        return sources;
+    }
+
+    void write(String key, Map<String, byte[]> sources) throws IOException {
+        Path entry = directory.resolve(key);
+        if (Files.exists(entry)) {
+            return;
+        }
+
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempDirectory(directory, key + ".tmp");
+
+        try {
+            for (Map.Entry<String, byte[]> source: sources.entrySet()) {
+                Files.write(temporary.resolve(source.getKey() + SOURCE_EXTENSION), source.getValue());
+            }
+
+            Files.move(temporary, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ioException) {
+            delete(temporary);
+
+            // Entries are published atomically, a concurrent build might have already written the same one
+            if (!Files.isDirectory(entry)) {
+                throw ioException;
+            }
+        }
+    }
+
+    private void delete(Path temporary) throws IOException {
+        try (Stream<Path> files = Files.list(temporary)) {
+            for (Path file: (Iterable<Path>) files::iterator) {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        Files.deleteIfExists(temporary);
+    }
+
+    private void updateAnnotations(MessageDigest digest, Element element) {
+        for (AnnotationMirror annotationMirror: element.getAnnotationMirrors()) {
+            update(digest, annotationMirror.toString());
+        }
+
+        update(digest, "");
+    }
+
+    private void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separator, to keep consecutive values from running into each other
+        digest.update((byte) 0);
+    }
+
+    /**
+     * Writes through to another {@link CodeWriter} while keeping a copy of the bytes of every generated class,
+     * keyed by its full class name.
+     */
+    static class CapturingCodeWriter extends CodeWriter {
+        private final CodeWriter core;
+        private final Map<String, ByteArrayOutputStream> captured = new HashMap<>();
+
+        CapturingCodeWriter(CodeWriter core) {
+            this.core = core;
+        }
+
+        @Override
+        public OutputStream openBinary(JPackage jPackage, String name) throws IOException {
+            String simpleName = name.endsWith(SOURCE_EXTENSION) ? name.substring(0, name.length() - SOURCE_EXTENSION.length()) : name;
+            String className = jPackage.name().isBlank() ? simpleName : jPackage.name() + "." + simpleName;
+
+            OutputStream coreStream = core.openBinary(jPackage, name);
+            ByteArrayOutputStream copy = captured.computeIfAbsent(className, ignored -> new ByteArrayOutputStream());
+
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    coreStream.write(b);
+                    copy.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    coreStream.write(bytes, offset, length);
+                    copy.write(bytes, offset, length);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    coreStream.flush();
+                }
+
+                @Override
+                public void close() throws IOException {
+                    coreStream.close();
+                }
+            };
+        }
+
+        @Override
+        public void close() throws IOException {
+            core.close();
+        }
+
+        byte[] getCaptured(String className) {
+            ByteArrayOutputStream copy = captured.get(className);
+            return copy != null ? copy.toByteArray() : null;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package ga.josejulio.versioned.path;
+
+import com.sun.codemodel.CodeWriter;
+import com.sun.codemodel.JPackage;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Timings and footprint of the processor, enabled with {@code versioned.path.report}.
+ * <p>
+ * The time of every {@link VersionedPath} class is split in phases with {@link ClassReport#lap}: whatever ran since the
+ * previous lap is attributed to the given phase.
+ */
+class ProcessingReport {
+
+    enum Phase {
+        // Reading the class and its versioned methods
+        COLLECTION,
+        VALIDATION,
+        // Which endpoints go in every version
+        PLANNING,
+        // Building the generated classes (code model, bytecode or template)
+        CONSTRUCTION,
+        WRITING;
+
+        String jsonName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final String backend;
+    private final List<RoundReport> rounds = new ArrayList<>();
+
+    ProcessingReport(String backend) {
+        this.backend = backend;
+    }
+
+    void startRound() {
+        rounds.add(new RoundReport(rounds.size() + 1, System.nanoTime()));
+    }
+
+    void endRound() {
+        RoundReport round = currentRound();
+        round.nanos = System.nanoTime() - round.start;
+    }
+
+    ClassReport startClass(String className) {
+        ClassReport classReport = new ClassReport(className);
+        currentRound().classes.add(classReport);
+        return classReport;
+    }
+
+    String toJson() {
+        StringBuilder json = new StringBuilder("{\n");
+        json.append("  \"backend\": ").append(quote(backend)).append(",\n");
+        json.append("  \"totals\": ");
+        appendClassFields(json.append("{"), totals()).append(", \"rounds\": ").append(rounds.size()).append("},\n");
+        json.append("  \"rounds\": [");
+
+        for (int i = 0; i < rounds.size(); i++) {
+            RoundReport round = rounds.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"round\": ").append(round.number)
+                    .append(", \"nanos\": ").append(round.nanos)
+                    .append(", \"classes\": [");
+
+            for (int j = 0; j < round.classes.size(); j++) {
+                ClassReport classReport = round.classes.get(j);
+                json.append(j == 0 ? "\n" : ",\n")
+                        .append("      {\"class\": ").append(quote(classReport.className))
+                        .append(", \"cached\": ").append(classReport.cached)
+                        .append(", ");
+                appendClassFields(json, classReport).append("}");
+            }
+
+            json.append(round.classes.isEmpty() ? "]}" : "\n    ]}");
+        }
+
+        return json.append(rounds.isEmpty() ? "]\n}\n" : "\n  ]\n}\n").toString();
+    }
+
+    String summary() {
+        ClassReport totals = totals();
+        StringBuilder summary = new StringBuilder("versioned-path: %d classes in %d rounds generated %d classes (%d methods, %d bytes) in %d ms".formatted(
+                classCount(),
+                rounds.size(),
+                totals.generatedClasses,
+                totals.generatedMethods,
+                totals.emittedBytes,
+                toMillis(totals.nanos())
+        ));
+
+        for (Phase phase: Phase.values()) {
+            summary.append(phase.ordinal() == 0 ? ": " : ", ")
+                    .append(phase.jsonName()).append(' ').append(toMillis(totals.phaseNanos[phase.ordinal()])).append(" ms");
+        }
+
+        return summary.toString();
+    }
+
+    private ClassReport totals() {
+        ClassReport totals = new ClassReport(null);
+        for (RoundReport round: rounds) {
+            for (ClassReport classReport: round.classes) {
+                for (int i = 0; i < totals.phaseNanos.length; i++) {
+                    totals.phaseNanos[i] += classReport.phaseNanos[i];
+                }
+
+                totals.generatedClasses += classReport.generatedClasses;
+                totals.generatedMethods += classReport.generatedMethods;
+                totals.emittedBytes += classReport.emittedBytes;
+            }
+        }
+
+        return totals;
+    }
+
+    private int classCount() {
+        int classCount = 0;
+        for (RoundReport round: rounds) {
+            classCount += round.classes.size();
+        }
+
+        return classCount;
+    }
+
+    private RoundReport currentRound() {
+        if (rounds.isEmpty()) {
+            throw new IllegalStateException("No round was started");
+        }
+
+        return rounds.get(rounds.size() - 1);
+    }
+
+    private static StringBuilder appendClassFields(StringBuilder json, ClassReport classReport) {
+        json.append("\"generatedClasses\": ").append(classReport.generatedClasses)
+                .append(", \"generatedMethods\": ").append(classReport.generatedMethods)
+                .append(", \"emittedBytes\": ").append(classReport.emittedBytes)
+                .append(", \"nanos\": ").append(classReport.nanos())
+                .append(", \"phaseNanos\": {");
+
+        for (Phase phase: Phase.values()) {
+            json.append(phase.ordinal() == 0 ? "" : ", ")
+                    .append(quote(phase.jsonName())).append(": ").append(classReport.phaseNanos[phase.ordinal()]);
+        }
+
+        return json.append("}");
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append("\\u%04x".formatted((int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+
+        return quoted.append('"').toString();
+    }
+
+    private static class RoundReport {
+        private final int number;
+        private final long start;
+        private final List<ClassReport> classes = new ArrayList<>();
+        private long nanos;
+
+        RoundReport(int number, long start) {
+            this.number = number;
+            this.start = start;
+        }
+    }
+
+    static class ClassReport {
+        private final String className;
+        private final long[] phaseNanos = new long[Phase.values().length];
+        private long lastLap = System.nanoTime();
+        private boolean cached;
+        private int generatedClasses;
+        private int generatedMethods;
+        private long emittedBytes;
+
+        private ClassReport(String className) {
+            this.className = className;
+        }
+
+        void lap(Phase phase) {
+            long now = System.nanoTime();
+            phaseNanos[phase.ordinal()] += now - lastLap;
+            lastLap = now;
+        }
+
+        // For work timed elsewhere, e.g. in another thread
+        void add(Phase phase, long nanos) {
+            phaseNanos[phase.ordinal()] += nanos;
+        }
+
+        void setCached(boolean cached) {
+            this.cached = cached;
+        }
+
+        void addGeneratedClass(int methods) {
+            generatedClasses++;
+            generatedMethods += methods;
+        }
+
+        void addEmittedBytes(long bytes) {
+            emittedBytes += bytes;
+        }
+
+        long nanos() {
+            long nanos = 0;
+            for (long phase: phaseNanos) {
+                nanos += phase;
+            }
+
+            return nanos;
+        }
+
+        OutputStream countEmittedBytes(OutputStream outputStream) {
+            return new FilterOutputStream(outputStream) {
+                @Override
+                public void write(int b) throws IOException {
+                    out.write(b);
+                    emittedBytes++;
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    out.write(bytes, offset, length);
+                    emittedBytes += length;
+                }
+            };
+        }
+
+        CodeWriter countEmittedBytes(CodeWriter codeWriter) {
+            return new CodeWriter() {
+                @Override
+                public OutputStream openBinary(JPackage jPackage, String name) throws IOException {
+                    return countEmittedBytes(codeWriter.openBinary(jPackage, name));
+                }
+
+                @Override
+                public void close() throws IOException {
+                    codeWriter.close();
+                }
+            };
+        }
+    }
+}
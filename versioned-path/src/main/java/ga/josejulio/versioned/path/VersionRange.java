@@ -0,0 +1,160 @@
+package ga.josejulio.versioned.path;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Set of versions, e.g. {@code ">=3.0"}, {@code ">=2.0 <4"} or {@code "1.0 || >=3.0"}.
+ * <p>
+ * Conditions separated by spaces (or commas) must all match, {@code ||} separates alternatives. The operators are
+ * {@code >=}, {@code >}, {@code <=}, {@code <} and {@code =}; a version without operator only matches itself. Versions
+ * are compared as with {@link Version#compareTo}, so "3" is the same as "3.0.0".
+ */
+public class VersionRange {
+
+    private static final String OR = "||";
+
+    private final String expression;
+    // Alternatives, each one a list of conditions that must all match
+    private final List<List<Condition>> alternatives;
+
+    private VersionRange(String expression, List<List<Condition>> alternatives) {
+        this.expression = expression;
+        this.alternatives = alternatives;
+    }
+
+    /**
+     * @throws RuntimeException if the expression is not a valid range.
+     */
+    public static VersionRange parse(String expression) {
+        List<List<Condition>> alternatives = new ArrayList<>();
+
+        int from = 0;
+        while (true) {
+            int to = expression.indexOf(OR, from);
+            alternatives.add(parseConditions(expression, from, to < 0 ? expression.length() : to));
+
+            if (to < 0) {
+                break;
+            }
+
+            from = to + OR.length();
+        }
+
+        return new VersionRange(expression.trim(), List.copyOf(alternatives));
+    }
+
+    public boolean contains(Version version) {
+        for (List<Condition> conditions: alternatives) {
+            boolean matches = true;
+            for (Condition condition: conditions) {
+                if (!condition.matches(version)) {
+                    matches = false;
+                    break;
+                }
+            }
+
+            if (matches) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    private static List<Condition> parseConditions(String expression, int from, int to) {
+        List<Condition> conditions = new ArrayList<>();
+        int index = from;
+
+        while (true) {
+            index = skipSeparators(expression, index, to);
+            if (index == to) {
+                break;
+            }
+
+            Operator operator = Operator.at(expression, index);
+            index = skipSeparators(expression, index + operator.symbol.length(), to);
+
+            int end = index;
+            while (end < to && !isSeparator(expression.charAt(end))) {
+                end++;
+            }
+
+            if (end == index) {
+                throw new RuntimeException("Invalid version range, missing version after %s: %s".formatted(operator.symbol, expression));
+            }
+
+            Version version = Version.tryParse(expression, index, end);
+            if (version == null) {
+                throw new RuntimeException("Invalid version range, %s is not a version: %s".formatted(expression.substring(index, end), expression));
+            }
+
+            conditions.add(new Condition(operator, version));
+            index = end;
+        }
+
+        if (conditions.isEmpty()) {
+            throw new RuntimeException("Invalid version range, empty alternative: " + expression);
+        }
+
+        return List.copyOf(conditions);
+    }
+
+    private static int skipSeparators(String expression, int index, int to) {
+        while (index < to && isSeparator(expression.charAt(index))) {
+            index++;
+        }
+
+        return index;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == ',';
+    }
+
+    private enum Operator {
+        // Two characters operators first, so ">=" is not read as ">"
+        GREATER_OR_EQUAL(">="),
+        LESS_OR_EQUAL("<="),
+        GREATER(">"),
+        LESS("<"),
+        EQUAL("="),
+        // No operator
+        EXACT("");
+
+        private final String symbol;
+
+        Operator(String symbol) {
+            this.symbol = symbol;
+        }
+
+        static Operator at(String expression, int index) {
+            for (Operator operator: values()) {
+                if (expression.startsWith(operator.symbol, index)) {
+                    return operator;
+                }
+            }
+
+            throw new IllegalStateException("EXACT matches anything");
+        }
+    }
+
+    private record Condition(Operator operator, Version version) {
+
+        boolean matches(Version other) {
+            int result = other.compareTo(version);
+            return switch (operator) {
+                case GREATER_OR_EQUAL -> result >= 0;
+                case LESS_OR_EQUAL -> result <= 0;
+                case GREATER -> result > 0;
+                case LESS -> result < 0;
+                case EQUAL, EXACT -> result == 0;
+            };
+        }
+    }
+}
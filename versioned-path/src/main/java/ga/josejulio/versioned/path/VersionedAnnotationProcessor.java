@@ -3,42 +3,87 @@ package ga.josejulio.versioned.path;
 import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessingCodeWriter;
 import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessingException;
 import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessorToolkit;
+import ga.josejulio.annotation.processor.codemodel.toolkit.TemplateClassWriter;
+import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JAnnotatable;
+import com.sun.codemodel.JArray;
+import com.sun.codemodel.JBlock;
+import com.sun.codemodel.ClassType;
+import com.sun.codemodel.JClass;
+import com.sun.codemodel.JClassAlreadyExistsException;
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
+import com.sun.codemodel.JExpr;
+import com.sun.codemodel.JFieldVar;
+import com.sun.codemodel.JInvocation;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JMod;
+import com.sun.codemodel.JOp;
+import com.sun.codemodel.JPackage;
+import com.sun.codemodel.JType;
+import com.sun.codemodel.JVar;
 
 import javax.annotation.processing.AbstractProcessor;
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.element.PackageElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
 import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.HEAD;
+import jakarta.ws.rs.NotFoundException;
 import jakarta.ws.rs.OPTIONS;
 import jakarta.ws.rs.PATCH;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.container.PreMatching;
+import jakarta.ws.rs.ext.Provider;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 public class VersionedAnnotationProcessor extends AbstractProcessor {
@@ -60,6 +105,44 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
     );
 
     private static final String VERSION_REPLACEMENT = "$version";
+    // Path parameter matching any of the versions served by a class
+    private static final String VERSION_PARAMETER = "{version:%s}";
+    private static final String VERSION_PARAMETER_NAME = "version";
+    // Names in the dispatcher methods, the copied parameters can't use them
+    private static final String DISPATCHER_VERSION_VARIABLE = "pathVersion";
+    private static final String DISPATCHER_INDEX_VARIABLE = "versionIndex";
+
+    static final String CACHE_DIR_OPTION = "versioned.path.cacheDir";
+    static final String BACKEND_OPTION = "versioned.path.backend";
+    static final String REPORT_OPTION = "versioned.path.report";
+    static final String REPORT_FORMAT_JSON = "json";
+    static final String REPORT_FILE_NAME = "versioned-path-report.json";
+    static final String THREADS_OPTION = "versioned.path.threads";
+    static final String INCLUDE_OPTION = "versioned.path.include";
+    static final String STRATEGY_OPTION = "versioned.path.strategy";
+    static final String ROUTES_OPTION = "versioned.path.routes";
+    static final String ROUTES_CLASS_NAME = "VersionedRoutes";
+    static final String ROUTE_FILTER_OPTION = "versioned.path.routeFilter";
+    static final String ROUTE_FILTER_CLASS_NAME = "VersionedRoutesFilter";
+    // Gradle asks a dynamic processor for its kind through its supported options, after init
+    static final String GRADLE_ISOLATING_OPTION = "org.gradle.annotation.processing.isolating";
+    static final String GRADLE_AGGREGATING_OPTION = "org.gradle.annotation.processing.aggregating";
+
+    enum Backend {
+        // Generates source files with code model
+        CODEMODEL,
+        // Writes the class files directly, skipping the compilation of the generated sources
+        BYTECODE,
+        // Renders the same sources as CODEMODEL straight from the elements, without building a code model
+        TEMPLATE
+    }
+
+    enum Strategy {
+        // A class per version, extending the @VersionedPath class
+        SUBCLASS,
+        // A single class for every version, whose methods call the method of the requested version
+        DISPATCHER
+    }
 
     private AnnotationProcessorToolkit annotationProcessorToolkit;
     private JCodeModel codeModel;
@@ -67,11 +150,109 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
     private Filer filer;
     private Elements elements;
     private Types types;
-    private final Set<String> processedClasses = new HashSet<>();
+    // Generated class name -> @VersionedPath class it was generated from
+    private final Map<String, Element> originatingElements = new HashMap<>();
+    private GenerationCache generationCache;
+    private Backend backend = Backend.CODEMODEL;
+    private Strategy strategy = Strategy.SUBCLASS;
+    private ProcessingReport report;
+    // Versions to generate, null generates all of them
+    private VersionRange includedVersions;
+    // Package -> routes of the classes processed in this round, null without routes
+    private Map<String, List<Route>> routesByPackage;
+    // Classes the routes of every package come from
+    private final Map<String, List<Element>> routesOriginatingElements = new TreeMap<>();
+    // Also generates a pre-matching filter with the routes of every package
+    private boolean routeFilter;
+    // Packages whose routes class was already generated
+    private final Set<String> routesPackages = new HashSet<>();
+    // Report of the class being processed, null without report
+    private ProcessingReport.ClassReport classReport;
+    // Renders the code models when more than one thread is configured, null renders them in the processor thread
+    private ExecutorService renderExecutor;
+    // Classes being rendered by renderExecutor, written to the Filer at the end of the round
+    private final List<PendingClass> pendingClasses = new ArrayList<>();
+    private int classFileVersion = BytecodeClass.toClassFileVersion(SourceVersion.RELEASE_17);
+    private int errorCount;
 
     @Override
     public synchronized void init(ProcessingEnvironment environment) {
         init(new JCodeModel(), environment.getElementUtils(), environment.getMessager(), environment.getFiler(), environment.getTypeUtils());
+
+        classFileVersion = BytecodeClass.toClassFileVersion(environment.getSourceVersion());
+
+        String backendName = environment.getOptions().get(BACKEND_OPTION);
+        if (backendName != null && !backendName.isBlank()) {
+            try {
+                setBackend(Backend.valueOf(backendName.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException illegalArgumentException) {
+                printError("Unknown %s: %s, expected one of %s".formatted(BACKEND_OPTION, backendName, Arrays.toString(Backend.values())));
+            }
+        }
+
+        String strategyName = environment.getOptions().get(STRATEGY_OPTION);
+        if (strategyName != null && !strategyName.isBlank()) {
+            try {
+                setStrategy(Strategy.valueOf(strategyName.trim().toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException illegalArgumentException) {
+                printError("Unknown %s: %s, expected one of %s".formatted(STRATEGY_OPTION, strategyName, Arrays.toString(Strategy.values())));
+            }
+        }
+
+        String reportFormat = environment.getOptions().get(REPORT_OPTION);
+        if (reportFormat != null && !reportFormat.isBlank()) {
+            if (reportFormat.trim().equalsIgnoreCase(REPORT_FORMAT_JSON)) {
+                setReport(new ProcessingReport(backend.name().toLowerCase(Locale.ROOT)));
+            } else {
+                printError("Unknown %s: %s, expected %s".formatted(REPORT_OPTION, reportFormat, REPORT_FORMAT_JSON));
+            }
+        }
+
+        String threads = environment.getOptions().get(THREADS_OPTION);
+        if (threads != null && !threads.isBlank()) {
+            try {
+                setThreads(Integer.parseInt(threads.trim()));
+            } catch (NumberFormatException numberFormatException) {
+                printError("Invalid %s: %s, expected a number of threads".formatted(THREADS_OPTION, threads));
+            }
+        }
+
+        String include = environment.getOptions().get(INCLUDE_OPTION);
+        if (include != null && !include.isBlank()) {
+            try {
+                setIncludedVersions(VersionRange.parse(include));
+            } catch (RuntimeException runtimeException) {
+                printError("Invalid %s: %s".formatted(INCLUDE_OPTION, runtimeException.getMessage()));
+            }
+        }
+
+        String routes = environment.getOptions().get(ROUTES_OPTION);
+        if (routes != null && !routes.isBlank()) {
+            setRoutes(Boolean.parseBoolean(routes.trim()));
+        }
+
+        String routeFilter = environment.getOptions().get(ROUTE_FILTER_OPTION);
+        if (routeFilter != null && !routeFilter.isBlank()) {
+            setRouteFilter(Boolean.parseBoolean(routeFilter.trim()));
+        }
+
+        String cacheDir = environment.getOptions().get(CACHE_DIR_OPTION);
+        if (cacheDir != null && !cacheDir.isBlank()) {
+            if (backend == Backend.CODEMODEL) {
+                // The included versions and the strategy change the generated sources, so they are part of the cache keys
+                List<String> configuration = new ArrayList<>();
+                if (includedVersions != null) {
+                    configuration.add(INCLUDE_OPTION + "=" + includedVersions);
+                }
+                if (strategy != Strategy.SUBCLASS) {
+                    configuration.add(STRATEGY_OPTION + "=" + strategy);
+                }
+                setGenerationCache(new GenerationCache(Paths.get(cacheDir), String.join(",", configuration)));
+            } else {
+                // Nothing to gain, the other backends are cheaper than reading the cached sources back
+                messager.printMessage(Diagnostic.Kind.WARNING, "%s is only used with the %s backend".formatted(CACHE_DIR_OPTION, Backend.CODEMODEL));
+            }
+        }
     }
 
     void init(JCodeModel codeModel, Elements elements, Messager messager, Filer filer, Types types) {
@@ -82,6 +263,57 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
         this.setCodeModel(codeModel);
     }
 
+    void setGenerationCache(GenerationCache generationCache) {
+        this.generationCache = generationCache;
+    }
+
+    void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    void setStrategy(Strategy strategy) {
+        if (strategy == Strategy.DISPATCHER && backend != Backend.CODEMODEL) {
+            // The dispatcher methods are only built with code model
+            printError("%s=%s is only supported with the %s backend".formatted(STRATEGY_OPTION, strategy, Backend.CODEMODEL));
+            return;
+        }
+
+        this.strategy = strategy;
+    }
+
+    void setReport(ProcessingReport report) {
+        this.report = report;
+    }
+
+    void setRoutes(boolean routes) {
+        this.routesByPackage = routes ? new TreeMap<>() : null;
+    }
+
+    // The filter is built from the routes, so they are generated too
+    void setRouteFilter(boolean routeFilter) {
+        this.routeFilter = routeFilter;
+        if (routeFilter && routesByPackage == null) {
+            setRoutes(true);
+        }
+    }
+
+    void setIncludedVersions(VersionRange includedVersions) {
+        this.includedVersions = includedVersions;
+    }
+
+    void setThreads(int threads) {
+        if (threads < 1) {
+            printError("Invalid %s: %d, at least one thread is required".formatted(THREADS_OPTION, threads));
+        } else if (threads > 1) {
+            if (backend == Backend.CODEMODEL) {
+                renderExecutor = createRenderExecutor(threads);
+            } else {
+                // The other backends read the javac model while writing, which is only safe in the processor thread
+                messager.printMessage(Diagnostic.Kind.WARNING, "%s is only used with the %s backend".formatted(THREADS_OPTION, Backend.CODEMODEL));
+            }
+        }
+    }
+
     void setCodeModel(JCodeModel codeModel) {
         this.codeModel = codeModel;
         this.annotationProcessorToolkit = new AnnotationProcessorToolkit(codeModel, types);
@@ -89,17 +321,50 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
 
     @Override
     public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+        if (report != null) {
+            report.startRound();
+        }
+
         for (TypeElement annotation : annotations) {
             Set<? extends Element> annotatedElements = roundEnvironment.getElementsAnnotatedWith(annotation);
             for (Element element : annotatedElements) {
                 // Only triggered by class elements
                 if (element.getKind().equals(ElementKind.CLASS)) {
-                    processedClasses.add(element.asType().toString());
-                    processClass(element);
+                    if (report != null) {
+                        classReport = report.startClass(element.asType().toString());
+                    }
+
+                    String cacheKey = generationCache != null ? generationCache.computeKey(element) : null;
+                    if (cacheKey != null && writeCachedSources(element, cacheKey)) {
+                        if (classReport != null) {
+                            classReport.setCached(true);
+                        }
+
+                        lap(ProcessingReport.Phase.WRITING);
+                        classReport = null;
+                        // The cached classes are not processed, their routes still need the versions
+                        if (routesByPackage != null) {
+                            addRoutes(element, planClass(element));
+                        }
+                        continue;
+                    }
+
+                    int previousErrorCount = errorCount;
+                    ClassPlan plan = planClass(element);
+                    processClass(element, plan);
+
+                    // Classes with errors are not cached, so the errors are reported again on the next build
+                    writeClass(element, errorCount == previousErrorCount ? cacheKey : null);
+                    lap(ProcessingReport.Phase.WRITING);
+                    classReport = null;
+
+                    if (errorCount == previousErrorCount) {
+                        addRoutes(element, plan);
+                    }
                 } else {
-                    if (!processedClasses.contains(element.getEnclosingElement().asType().toString())) {
-                        messager.printMessage(
-                                Diagnostic.Kind.ERROR,
+                    // Only looks at the enclosing element, to keep the processor isolating
+                    if (element.getEnclosingElement().getAnnotation(VersionedPath.class) == null) {
+                        printError(
                                 "Container class (" +
                                         element.getEnclosingElement().asType().toString() +
                                         ") of element ("
@@ -112,13 +377,21 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
             }
         }
 
-        try {
-            codeModel.build(new AnnotationProcessingCodeWriter(filer));
-        } catch (IOException ex) {
-            messager.printMessage(Diagnostic.Kind.ERROR, "Error writing source files: " + ex);
+        // Every source has to be created in this round to be compiled in the next one
+        writePendingClasses();
+        writeRoutes();
+
+        if (roundEnvironment.processingOver() && renderExecutor != null) {
+            renderExecutor.shutdown();
+        }
+
+        if (report != null) {
+            report.endRound();
+            if (roundEnvironment.processingOver()) {
+                writeReport();
+            }
         }
 
-        setCodeModel(new JCodeModel());
         return true;
     }
 
@@ -127,16 +400,50 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
         return Set.of(VersionedPath.class.getCanonicalName());
     }
 
+    @Override
+    public Set<String> getSupportedOptions() {
+        // The routes and the report are written from all the classes, every other file comes from a single class
+        boolean aggregating = routesByPackage != null || report != null;
+        return Set.of(
+                CACHE_DIR_OPTION, BACKEND_OPTION, REPORT_OPTION, THREADS_OPTION, INCLUDE_OPTION, STRATEGY_OPTION, ROUTES_OPTION, ROUTE_FILTER_OPTION,
+                aggregating ? GRADLE_AGGREGATING_OPTION : GRADLE_ISOLATING_OPTION
+        );
+    }
+
+    Map<String, Element> getOriginatingElements() {
+        return originatingElements;
+    }
+
     List<JDefinedClass> processClass(Element classElement) {
-        List<JDefinedClass> created = new ArrayList<>();
-        checkForBannedAnnotations(classElement);
+        return processClass(classElement, planClass(classElement));
+    }
 
-        List<ExecutableElement> methodsWithVersionedPath = collectVersionedMethods(classElement);
-        validate(methodsWithVersionedPath);
+    // The versioned methods of the class and the endpoints of every version, used by the classes and the routes
+    private ClassPlan planClass(Element classElement) {
+        checkForBannedAnnotations(classElement);
 
         VersionedPath versionedPath = classElement.getAnnotation(VersionedPath.class);
-        Version classVersion = getClassVersion(classElement);
-        Set<Version> versions = collectVersions(classVersion, methodsWithVersionedPath);
+        Version classVersion = getClassVersion(classElement, versionedPath);
+        Version classRemovedInVersion = getClassRemovedInVersion(classElement, versionedPath, classVersion);
+
+        List<VersionedEndpoint> endpoints = collectVersionedMethods(classElement, classVersion);
+        lap(ProcessingReport.Phase.COLLECTION);
+
+        validate(endpoints);
+        lap(ProcessingReport.Phase.VALIDATION);
+
+        Set<Version> versions = collectVersions(classVersion, classRemovedInVersion, endpoints);
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = collectMethodsForVersions(endpoints, versions);
+        lap(ProcessingReport.Phase.PLANNING);
+
+        return new ClassPlan(versionedPath, endpoints, endpointsByVersion);
+    }
+
+    private List<JDefinedClass> processClass(Element classElement, ClassPlan plan) {
+        List<JDefinedClass> created = new ArrayList<>();
+        VersionedPath versionedPath = plan.versionedPath();
+        List<VersionedEndpoint> endpoints = plan.endpoints();
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = plan.endpointsByVersion();
 
         PackageElement classPackage = elements.getPackageOf(classElement);
         String packageName = classPackage.getQualifiedName().toString();
@@ -144,143 +451,496 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
                 // Inner classes use "." in their class names.
                 .replace(".", "_");
 
-        for (Version version: versions) {
+        if (strategy == Strategy.DISPATCHER) {
             try {
-                String name = packageName + "."  + className + "V" + version.toMinorVersionString().replace(".", "_");
-                JDefinedClass klass = annotationProcessorToolkit.extendFromClass(name, classElement);
-                created.add(klass);
-
-                annotationProcessorToolkit.copyAnnotations(classElement, klass, IGNORED_ANNOTATIONS);
+                JDefinedClass klass = createDispatcherClass(packageName + "." + className + "Dispatcher", classElement, versionedPath.path(), endpoints, endpointsByVersion);
+                if (klass != null) {
+                    created.add(klass);
+                    if (classReport != null) {
+                        classReport.addGeneratedClass(klass.methods().size());
+                    }
+                }
+            } catch (AnnotationProcessingException annotationProcessingException) {
+                printError(annotationProcessingException.getMessage());
+            }
 
-                annotatePath(klass, versionedPath, version);
+            lap(ProcessingReport.Phase.CONSTRUCTION);
+            return created;
+        }
 
-                List<ExecutableElement> targetMethods = collectMethodsForTargetVersion(methodsWithVersionedPath, version, classVersion);
+        for (Map.Entry<List<Version>, List<VersionedEndpoint>> versionEndpoints: groupVersions(endpointsByVersion, includedVersions).entrySet()) {
+            List<Version> classVersions = versionEndpoints.getKey();
+            try {
+                String name = packageName + "."  + className + "V" + classVersions.get(0).toMinorVersionString().replace(".", "_");
+                switch (backend) {
+                    case CODEMODEL -> created.add(createCodeModelClass(name, classElement, versionedPath.path(), classVersions, versionEndpoints.getValue()));
+                    case BYTECODE -> writeBytecodeClass(name, classElement, versionedPath.path(), classVersions, versionEndpoints.getValue());
+                    case TEMPLATE -> writeTemplateClass(name, classElement, versionedPath.path(), classVersions, versionEndpoints.getValue());
+                }
 
-                for (ExecutableElement method : targetMethods) {
-                    JMethod jMethod = annotationProcessorToolkit.overrideMethod(klass, method, IGNORED_ANNOTATIONS);
-                    annotatePath(jMethod, method.getAnnotation(VersionedPath.class), version);
-                    jMethod.annotate(toRestMethodAnnotation(getHttpMethod(method)));
+                if (classReport != null) {
+                    classReport.addGeneratedClass(versionEndpoints.getValue().size());
                 }
             } catch (AnnotationProcessingException annotationProcessingException) {
-                messager.printMessage(Diagnostic.Kind.ERROR, annotationProcessingException.getMessage());
+                printError(annotationProcessingException.getMessage());
             }
         }
 
+        // The code model classes are written later, with writeClass
+        if (backend == Backend.CODEMODEL) {
+            lap(ProcessingReport.Phase.CONSTRUCTION);
+        }
+
         return created;
     }
 
+    JDefinedClass createCodeModelClass(String name, Element classElement, String classPath, List<Version> versions, List<VersionedEndpoint> endpoints) {
+        JDefinedClass klass = annotationProcessorToolkit.extendFromClass(name, classElement);
+        originatingElements.put(klass.fullName(), classElement);
+
+        annotationProcessorToolkit.copyAnnotations(classElement, klass, IGNORED_ANNOTATIONS);
+
+        annotatePath(klass, classPath, versions);
+
+        for (VersionedEndpoint endpoint : endpoints) {
+            JMethod jMethod = annotationProcessorToolkit.overrideMethod(klass, endpoint.method(), IGNORED_ANNOTATIONS);
+            annotatePath(jMethod, endpoint.path(), versions);
+            jMethod.annotate(annotationProcessorToolkit.ref(toRestMethodAnnotation(endpoint.httpMethod())));
+        }
+
+        return klass;
+    }
+
+    // One class for every (included) version, with a method per endpoint that calls the method of the requested version:
+    //   @Path("/api/v{version:1\\.0|2\\.0}/pets")
+    //   class PetResourceDispatcher extends PetResource {
+    //       private static final long[] VERSIONS = {...};
+    //       @POST
+    //       public void dispatchAddPetThrowsIfFound(@PathParam("version") String pathVersion, @QueryParam("name") String name) {
+    //           int versionIndex = VersionDispatch.indexOf(VERSIONS, pathVersion);
+    //           if (versionIndex >= 0 && versionIndex <= 0) { super.addPet(name); return; }
+    //           ...
+    //           throw new NotFoundException();
+    //       }
+    //   }
+    // Returns null if no version is included.
+    JDefinedClass createDispatcherClass(String name, Element classElement, String classPath, List<VersionedEndpoint> endpoints, Map<Version, List<VersionedEndpoint>> endpointsByVersion) {
+        List<Version> versions = new ArrayList<>();
+        // Endpoint -> first and last index of the versions that serve it
+        Map<VersionedEndpoint, int[]> versionRanges = new IdentityHashMap<>();
+        for (Map.Entry<Version, List<VersionedEndpoint>> versionEndpoints: endpointsByVersion.entrySet()) {
+            if (includedVersions != null && !includedVersions.contains(versionEndpoints.getKey())) {
+                continue;
+            }
+
+            int index = versions.size();
+            versions.add(versionEndpoints.getKey());
+            for (VersionedEndpoint endpoint: versionEndpoints.getValue()) {
+                versionRanges.computeIfAbsent(endpoint, key -> new int[] { index, index })[1] = index;
+            }
+        }
+
+        if (versions.isEmpty()) {
+            return null;
+        }
+
+        if (!classPath.contains(VERSION_REPLACEMENT)) {
+            throw new AnnotationProcessingException("The dispatcher strategy requires %s in the class path: %s".formatted(VERSION_REPLACEMENT, classElement.asType()));
+        }
+
+        JDefinedClass klass = annotationProcessorToolkit.extendFromClass(name, classElement);
+        originatingElements.put(klass.fullName(), classElement);
+        annotationProcessorToolkit.copyAnnotations(classElement, klass, IGNORED_ANNOTATIONS);
+
+        Set<String> minorVersions = new LinkedHashSet<>();
+        JArray packedVersions = JExpr.newArray(codeModel.LONG);
+        for (Version version: versions) {
+            // Requests only have the minor version
+            if (!minorVersions.add(version.toMinorVersionString())) {
+                throw new AnnotationProcessingException("The dispatcher strategy can't tell apart the versions with the same minor version: " + version);
+            }
+
+            packedVersions.add(JExpr.lit(Version.pack(version.getMajor(), version.getMinor(), 0)));
+        }
+
+        klass.annotate(annotationProcessorToolkit.ref(Path.class)).param("value", classPath.replace(VERSION_REPLACEMENT, toVersionParameter(minorVersions)));
+        JFieldVar versionsField = klass.field(JMod.PRIVATE | JMod.STATIC | JMod.FINAL, long[].class, "VERSIONS", packedVersions);
+
+        // Endpoints of every key, in declaration order
+        Map<String, List<VersionedEndpoint>> endpointsByKey = new LinkedHashMap<>();
+        for (VersionedEndpoint endpoint: endpoints) {
+            if (versionRanges.containsKey(endpoint)) {
+                endpointsByKey.computeIfAbsent(endpoint.key(), key -> new ArrayList<>()).add(endpoint);
+            }
+        }
+
+        for (List<VersionedEndpoint> keyEndpoints: endpointsByKey.values()) {
+            keyEndpoints.sort(Comparator.comparing(VersionedEndpoint::sinceVersion));
+            createDispatcherMethod(klass, versionsField, keyEndpoints, versionRanges);
+        }
+
+        return klass;
+    }
+
+    private void createDispatcherMethod(JDefinedClass klass, JFieldVar versionsField, List<VersionedEndpoint> endpoints, Map<VersionedEndpoint, int[]> versionRanges) {
+        // The annotations and parameters of the latest method are the ones declared
+        VersionedEndpoint latest = endpoints.get(endpoints.size() - 1);
+        ExecutableElement latestMethod = latest.method();
+        validateDispatchedMethods(latest, endpoints);
+
+        TypeMirror returnType = latestMethod.getReturnType();
+        for (VersionedEndpoint endpoint: endpoints) {
+            if (!types.isSameType(returnType, endpoint.method().getReturnType())) {
+                // Different entities, JAX-RS writes them as their runtime type
+                returnType = elements.getTypeElement(Object.class.getCanonicalName()).asType();
+                break;
+            }
+        }
+
+        JType jReturnType = annotationProcessorToolkit.toJType(returnType);
+        String methodName = latestMethod.getSimpleName().toString();
+        JMethod jMethod = klass.method(JMod.PUBLIC, jReturnType, "dispatch" + Character.toUpperCase(methodName.charAt(0)) + methodName.substring(1));
+
+        annotationProcessorToolkit.copyAnnotations(latestMethod, jMethod, IGNORED_ANNOTATIONS);
+        if (latest.path() != null) {
+            jMethod.annotate(annotationProcessorToolkit.ref(Path.class)).param("value", latest.path());
+        }
+        jMethod.annotate(annotationProcessorToolkit.ref(toRestMethodAnnotation(latest.httpMethod())));
+
+        JVar pathVersion = jMethod.param(annotationProcessorToolkit.ref(String.class), DISPATCHER_VERSION_VARIABLE);
+        pathVersion.annotate(annotationProcessorToolkit.ref(PathParam.class)).param("value", VERSION_PARAMETER_NAME);
+        List<JVar> parameters = annotationProcessorToolkit.copyParameters(latestMethod, jMethod, IGNORED_ANNOTATIONS);
+
+        Set<String> thrownTypes = new HashSet<>();
+        for (VersionedEndpoint endpoint: endpoints) {
+            for (TypeMirror thrownType: endpoint.method().getThrownTypes()) {
+                if (thrownTypes.add(thrownType.toString())) {
+                    jMethod._throws((JClass) annotationProcessorToolkit.toJType(thrownType));
+                }
+            }
+        }
+
+        JVar versionIndex = jMethod.body().decl(
+                codeModel.INT,
+                DISPATCHER_INDEX_VARIABLE,
+                annotationProcessorToolkit.ref(VersionDispatch.class).staticInvoke("indexOf").arg(versionsField).arg(pathVersion)
+        );
+
+        for (VersionedEndpoint endpoint: endpoints) {
+            int[] versionRange = versionRanges.get(endpoint);
+            JBlock block = jMethod.body()._if(JOp.cand(
+                    JOp.gte(versionIndex, JExpr.lit(versionRange[0])),
+                    JOp.lte(versionIndex, JExpr.lit(versionRange[1]))
+            ))._then();
+
+            JInvocation superCall = JExpr._super().invoke(endpoint.method().getSimpleName().toString());
+            for (JVar parameter: parameters) {
+                superCall.arg(parameter);
+            }
+
+            if (jReturnType.equals(codeModel.VOID)) {
+                block.add(superCall);
+                block._return();
+            } else if (endpoint.method().getReturnType().getKind() == TypeKind.VOID) {
+                block.add(superCall);
+                block._return(JExpr._null());
+            } else {
+                block._return(superCall);
+            }
+        }
+
+        jMethod.body()._throw(JExpr._new(annotationProcessorToolkit.ref(NotFoundException.class)));
+    }
+
+    // Every version is called with the parameters of the latest one
+    private void validateDispatchedMethods(VersionedEndpoint latest, List<VersionedEndpoint> endpoints) {
+        List<? extends VariableElement> parameters = latest.method().getParameters();
+        if (latest.path() != null && latest.path().contains(VERSION_REPLACEMENT)) {
+            throw new AnnotationProcessingException("The dispatcher strategy doesn't support %s in method paths: %s".formatted(VERSION_REPLACEMENT, latest.method().getSimpleName()));
+        }
+
+        for (VariableElement parameter: parameters) {
+            String parameterName = parameter.getSimpleName().toString();
+            if (parameterName.equals(DISPATCHER_VERSION_VARIABLE) || parameterName.equals(DISPATCHER_INDEX_VARIABLE)) {
+                throw new AnnotationProcessingException("Parameter name %s is reserved by the dispatcher strategy: %s".formatted(parameterName, latest.method().getSimpleName()));
+            }
+        }
+
+        for (VersionedEndpoint endpoint: endpoints) {
+            ExecutableElement method = endpoint.method();
+            if (!method.getTypeParameters().isEmpty()) {
+                throw new AnnotationProcessingException("The dispatcher strategy doesn't support generic methods: " + method.getSimpleName());
+            }
+
+            List<? extends VariableElement> methodParameters = method.getParameters();
+            boolean sameParameters = methodParameters.size() == parameters.size();
+            for (int i = 0; sameParameters && i < parameters.size(); i++) {
+                sameParameters = types.isSameType(parameters.get(i).asType(), methodParameters.get(i).asType())
+                        && parameters.get(i).getAnnotationMirrors().toString().equals(methodParameters.get(i).getAnnotationMirrors().toString());
+            }
+
+            if (!sameParameters) {
+                throw new AnnotationProcessingException("The dispatcher strategy requires the same parameters in every version of %s: %s and %s".formatted(
+                        endpoint.key(),
+                        method.getSimpleName(),
+                        latest.method().getSimpleName()
+                ));
+            }
+        }
+    }
+
+    byte[] createBytecodeClass(String name, Element classElement, String classPath, List<Version> versions, List<VersionedEndpoint> endpoints) {
+        BytecodeClass bytecodeClass = new BytecodeClass(elements, types, classFileVersion, name, classElement);
+        bytecodeClass.copyAnnotations(classElement, IGNORED_ANNOTATIONS);
+        bytecodeClass.annotate(Path.class, toPath(classPath, versions));
+
+        for (VersionedEndpoint endpoint : endpoints) {
+            BytecodeClass.OverriddenMethod method = bytecodeClass.overrideMethod(endpoint.method(), IGNORED_ANNOTATIONS);
+            if (endpoint.path() != null) {
+                method.annotate(Path.class, toPath(endpoint.path(), versions));
+            }
+
+            method.annotate(toRestMethodAnnotation(endpoint.httpMethod()), null);
+        }
+
+        return bytecodeClass.toByteArray();
+    }
+
+    private void writeBytecodeClass(String name, Element classElement, String classPath, List<Version> versions, List<VersionedEndpoint> endpoints) {
+        byte[] bytecode = createBytecodeClass(name, classElement, classPath, versions, endpoints);
+        lap(ProcessingReport.Phase.CONSTRUCTION);
+
+        try (OutputStream outputStream = countEmittedBytes(filer.createClassFile(name, classElement).openOutputStream())) {
+            outputStream.write(bytecode);
+        } catch (IOException ex) {
+            printError("Error writing class file %s: %s".formatted(name, ex));
+        }
+
+        lap(ProcessingReport.Phase.WRITING);
+    }
+
+    TemplateClassWriter createTemplateClass(String name, Element classElement, String classPath, List<Version> versions, List<VersionedEndpoint> endpoints) {
+        TemplateClassWriter templateClassWriter = new TemplateClassWriter(types, name, classElement);
+        templateClassWriter.copyAnnotations(classElement, IGNORED_ANNOTATIONS);
+        templateClassWriter.annotate(Path.class, toPath(classPath, versions));
+
+        for (VersionedEndpoint endpoint : endpoints) {
+            TemplateClassWriter.OverriddenMethod method = templateClassWriter.overrideMethod(endpoint.method(), IGNORED_ANNOTATIONS);
+            if (endpoint.path() != null) {
+                method.annotate(Path.class, toPath(endpoint.path(), versions));
+            }
+
+            method.annotate(toRestMethodAnnotation(endpoint.httpMethod()), null);
+        }
+
+        return templateClassWriter;
+    }
+
+    private void writeTemplateClass(String name, Element classElement, String classPath, List<Version> versions, List<VersionedEndpoint> endpoints) {
+        TemplateClassWriter templateClassWriter = createTemplateClass(name, classElement, classPath, versions, endpoints);
+        lap(ProcessingReport.Phase.CONSTRUCTION);
+
+        // The sources are only rendered while writing them
+        try (Writer writer = TemplateClassWriter.openSource(countEmittedBytes(filer.createSourceFile(name, classElement).openOutputStream()))) {
+            templateClassWriter.write(writer);
+        } catch (IOException ex) {
+            printError("Error writing source file %s: %s".formatted(name, ex));
+        }
+
+        lap(ProcessingReport.Phase.WRITING);
+    }
+
     private void checkForBannedAnnotations(Element element) {
         // Todo: @VersionedMethod can be mixed with @Path
         for (Class<? extends Annotation> annotation: bannedAnnotations) {
             if (element.getAnnotation(annotation) != null) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Annotation %s not allowed in %s".formatted(annotation, element.getSimpleName().toString()));
+                printError("Annotation %s not allowed in %s".formatted(annotation, element.getSimpleName().toString()));
             }
         }
     }
 
-    private List<ExecutableElement> collectVersionedMethods(Element classElement) {
+    private List<VersionedEndpoint> collectVersionedMethods(Element classElement, Version classVersion) {
         return classElement
                 .getEnclosedElements()
-                .parallelStream()
+                .stream()
                 .filter(element -> element.getKind().equals(ElementKind.METHOD))
-                .filter(element -> element.getAnnotation(VersionedPath.class) != null || element.getAnnotation(VersionedMethod.class) != null)
-                .map(element -> (ExecutableElement) element)
+                .map(element -> VersionedEndpoint.of((ExecutableElement) element, classVersion))
+                .filter(Objects::nonNull)
                 .collect(Collectors.toList());
     }
 
-    private List<ExecutableElement> collectMethodsForTargetVersion(List<ExecutableElement> methods, Version targetVersion, Version defaultVersion) {
-        Map<String, ExecutableElement> targetMethods = new HashMap<>();
+    // Sweep over the endpoints sorted by version: every version only applies the endpoints introduced (or removed) since
+    // the previous one, and reuses the previous list of endpoints if nothing changed.
+    // Versions are sorted and the endpoints of every version keep their declaration order, so the same class always
+    // generates the same sources.
+    static Map<Version, List<VersionedEndpoint>> collectMethodsForVersions(List<VersionedEndpoint> endpoints, Collection<Version> versions) {
+        List<VersionedEndpoint> sortedEndpoints = new ArrayList<>(endpoints);
+        sortedEndpoints.sort(Comparator.comparing(VersionedEndpoint::sinceVersion));
+
+        List<VersionedEndpoint> removedEndpoints = new ArrayList<>();
+        for (VersionedEndpoint endpoint: endpoints) {
+            if (endpoint.removedInVersion() != null) {
+                removedEndpoints.add(endpoint);
+            }
+        }
+        removedEndpoints.sort(Comparator.comparing(VersionedEndpoint::removedInVersion));
 
-        for (ExecutableElement method : methods) {
-            Version methodVersion = getVersion(method, defaultVersion);
+        List<Version> sortedVersions = new ArrayList<>(versions);
+        Collections.sort(sortedVersions);
 
-            if (methodVersion.compareTo(targetVersion) <= 0) {
-                String key = computeKeyForMethod(method);
-                ExecutableElement presentExecutableElement = targetMethods.get(key);
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = new LinkedHashMap<>();
+        Map<String, VersionedEndpoint> targetEndpoints = new HashMap<>();
+        List<VersionedEndpoint> snapshot = List.of();
+        int next = 0;
+        int nextRemoved = 0;
 
-                if (presentExecutableElement == null) {
-                    targetMethods.put(key, method);
-                } else {
-                    Version presentVersion = getVersion(presentExecutableElement, defaultVersion);
+        for (Version targetVersion : sortedVersions) {
+            boolean changed = false;
 
-                    if (presentVersion.equals(methodVersion)) {
-                        throw new RuntimeException("Multiple methods for the same endpoint/version: " + key);
-                    }
+            for (; next < sortedEndpoints.size() && sortedEndpoints.get(next).sinceVersion().compareTo(targetVersion) <= 0; ++next) {
+                VersionedEndpoint endpoint = sortedEndpoints.get(next);
+                VersionedEndpoint present = targetEndpoints.put(endpoint.key(), endpoint);
+
+                if (present != null && present.sinceVersion().equals(endpoint.sinceVersion())) {
+                    throw new RuntimeException("Multiple methods for the same endpoint/version: " + endpoint.key());
+                }
 
-                    if (presentVersion.compareTo(methodVersion) < 0) {
-                        targetMethods.put(key, method);
+                changed = true;
+            }
+
+            for (; nextRemoved < removedEndpoints.size() && removedEndpoints.get(nextRemoved).removedInVersion().compareTo(targetVersion) <= 0; ++nextRemoved) {
+                VersionedEndpoint endpoint = removedEndpoints.get(nextRemoved);
+                // Only if it was not already replaced by a newer method
+                if (targetEndpoints.remove(endpoint.key(), endpoint)) {
+                    changed = true;
+                }
+            }
+
+            if (changed) {
+                List<VersionedEndpoint> versionEndpoints = new ArrayList<>(targetEndpoints.size());
+                for (VersionedEndpoint endpoint: endpoints) {
+                    if (targetEndpoints.get(endpoint.key()) == endpoint) {
+                        versionEndpoints.add(endpoint);
                     }
                 }
+
+                snapshot = List.copyOf(versionEndpoints);
+            }
+
+            endpointsByVersion.put(targetVersion, snapshot);
+        }
+
+        return endpointsByVersion;
+    }
+
+    // Consecutive versions with the same endpoints are served by a single class, named after the first one.
+    // Excluded versions are skipped, they were only planned because the endpoints of an included version can come from them.
+    // Versions aren't grouped if an endpoint path has its own $version, as it would need to match the one of the class.
+    static Map<List<Version>, List<VersionedEndpoint>> groupVersions(Map<Version, List<VersionedEndpoint>> endpointsByVersion, VersionRange includedVersions) {
+        Map<List<Version>, List<VersionedEndpoint>> endpointsByVersions = new LinkedHashMap<>();
+        List<Version> versions = null;
+        List<VersionedEndpoint> endpoints = null;
+
+        for (Map.Entry<Version, List<VersionedEndpoint>> versionEndpoints: endpointsByVersion.entrySet()) {
+            Version version = versionEndpoints.getKey();
+            if (includedVersions != null && !includedVersions.contains(version)) {
+                continue;
+            }
+
+            if (versions != null && versionEndpoints.getValue().equals(endpoints) && !hasVersionedPath(endpoints)) {
+                versions.add(version);
+                continue;
+            }
+
+            if (versions != null) {
+                endpointsByVersions.put(List.copyOf(versions), endpoints);
             }
+
+            versions = new ArrayList<>();
+            versions.add(version);
+            endpoints = versionEndpoints.getValue();
+        }
+
+        if (versions != null) {
+            endpointsByVersions.put(List.copyOf(versions), endpoints);
         }
 
-        return List.copyOf(targetMethods.values());
+        return endpointsByVersions;
     }
 
-    private void validate(List<ExecutableElement> elements) {
-        for (Element enclosedElement: elements) {
+    private static boolean hasVersionedPath(List<VersionedEndpoint> endpoints) {
+        for (VersionedEndpoint endpoint: endpoints) {
+            if (endpoint.path() != null && endpoint.path().contains(VERSION_REPLACEMENT)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void validate(List<VersionedEndpoint> endpoints) {
+        for (VersionedEndpoint endpoint: endpoints) {
+            Element enclosedElement = endpoint.method();
             // Error: Method is not public
             if (!enclosedElement.getModifiers().contains(Modifier.PUBLIC)) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Methods are required to be public: " + enclosedElement.getSimpleName());
+                printError("Methods are required to be public: " + enclosedElement.getSimpleName());
             }
 
             // Error: Method is final
             if (enclosedElement.getModifiers().contains(Modifier.FINAL)) {
-                messager.printMessage(Diagnostic.Kind.ERROR, "Final methods are not allowed: " + enclosedElement.getSimpleName());
+                printError("Final methods are not allowed: " + enclosedElement.getSimpleName());
+            }
+
+            // Error: Method is removed before (or when) it is introduced
+            if (endpoint.removedInVersion() != null && endpoint.removedInVersion().compareTo(endpoint.sinceVersion()) <= 0) {
+                printError("`removedInVersion` must be greater than `sinceVersion`: " + enclosedElement.getSimpleName());
             }
 
             checkForBannedAnnotations(enclosedElement);
         }
     }
 
-    private Set<Version> collectVersions(Version classVersion, Collection<ExecutableElement> versionedElementMethods) {
-        Set<Version> versionSet = new HashSet<>();
+    // Versions where an endpoint is removed are versions too, they generate the class without it.
+    // Nothing is generated from the version the class is removed in.
+    private Set<Version> collectVersions(Version classVersion, Version classRemovedInVersion, Collection<VersionedEndpoint> endpoints) {
+        TreeSet<Version> versionSet = new TreeSet<>();
         versionSet.add(classVersion);
 
-        for (Element element: versionedElementMethods) {
-            VersionedPath versionedPath  = element
-                    .getAnnotation(VersionedPath.class);
-
-            String methodVersion = versionedPath != null ? versionedPath.sinceVersion() : "";
-
-            versionSet.add(methodVersion.isBlank() ? classVersion : new Version(methodVersion));
+        for (VersionedEndpoint endpoint: endpoints) {
+            versionSet.add(endpoint.sinceVersion());
+            if (endpoint.removedInVersion() != null) {
+                versionSet.add(endpoint.removedInVersion());
+            }
         }
 
-        return versionSet;
-    }
-
-    private Version getVersion(Element element, Version defaultVersion) {
-        VersionedPath versionedPath = element.getAnnotation(VersionedPath.class);
-        if (versionedPath == null || versionedPath.sinceVersion().isBlank()) {
-            return defaultVersion;
+        if (classRemovedInVersion != null) {
+            return versionSet.headSet(classRemovedInVersion, false);
         }
 
-        return new Version(versionedPath.sinceVersion());
+        return versionSet;
     }
 
-    private Version getClassVersion(Element classElement) {
-        String sinceClassVersion = classElement.getAnnotation(VersionedPath.class).sinceVersion();
+    private Version getClassVersion(Element classElement, VersionedPath versionedPath) {
+        String sinceClassVersion = versionedPath.sinceVersion();
         if (sinceClassVersion.isBlank()) {
-            messager.printMessage(Diagnostic.Kind.ERROR, "`sinceVersion` is required for class elements: " + classElement.asType().toString());
+            printError("`sinceVersion` is required for class elements: " + classElement.asType().toString());
             sinceClassVersion = "1.0";
         }
 
-        return new Version(sinceClassVersion);
+        return Version.parse(sinceClassVersion);
     }
 
-    private String computeKeyForMethod(ExecutableElement method) {
-        VersionedPath versionedPath = method.getAnnotation(VersionedPath.class);
-        String path = versionedPath != null ? versionedPath.path() : "";
-        return "%s_%s".formatted(getHttpMethod(method).name(), path);
-    }
+    private Version getClassRemovedInVersion(Element classElement, VersionedPath versionedPath, Version classVersion) {
+        if (versionedPath.removedInVersion().isBlank()) {
+            return null;
+        }
 
-    private VersionedMethod.HttpMethod getHttpMethod(Element element) {
-        VersionedMethod versionedMethod = element.getAnnotation(VersionedMethod.class);
-        if (versionedMethod == null) {
-            return VersionedMethod.HttpMethod.GET;
+        Version removedInVersion = Version.parse(versionedPath.removedInVersion());
+        if (removedInVersion.compareTo(classVersion) <= 0) {
+            printError("`removedInVersion` must be greater than `sinceVersion`: " + classElement.asType().toString());
         }
 
-        return versionedMethod.value();
+        return removedInVersion;
     }
 
     private Class<? extends Annotation> toRestMethodAnnotation(VersionedMethod.HttpMethod versionedMethod) {
@@ -295,11 +955,424 @@ public class VersionedAnnotationProcessor extends AbstractProcessor {
         };
     }
 
-    private void annotatePath(JAnnotatable annotatable, VersionedPath versionedPath, Version version) {
-        if (versionedPath != null) {
+    private void annotatePath(JAnnotatable annotatable, String path, List<Version> versions) {
+        if (path != null) {
             annotatable
-                    .annotate(Path.class)
-                    .param("value", versionedPath.path().replace(VERSION_REPLACEMENT, version.toMinorVersionString()));
+                    .annotate(annotationProcessorToolkit.ref(Path.class))
+                    .param("value", toPath(path, versions));
+        }
+    }
+
+    // The version itself, or a path parameter matching any of them, e.g. {version:1\.0|1\.1}
+    static String toPath(String path, List<Version> versions) {
+        Set<String> minorVersions = new LinkedHashSet<>();
+        for (Version version: versions) {
+            minorVersions.add(version.toMinorVersionString());
+        }
+
+        if (minorVersions.size() == 1) {
+            return path.replace(VERSION_REPLACEMENT, minorVersions.iterator().next());
+        }
+
+        return path.replace(VERSION_REPLACEMENT, toVersionParameter(minorVersions));
+    }
+
+    private static String toVersionParameter(Collection<String> minorVersions) {
+        StringJoiner alternatives = new StringJoiner("|");
+        for (String minorVersion: minorVersions) {
+            alternatives.add(minorVersion.replace(".", "\\."));
+        }
+
+        return VERSION_PARAMETER.formatted(alternatives);
+    }
+
+    private boolean writeCachedSources(Element classElement, String cacheKey) {
+        try {
+            Map<String, byte[]> sources = generationCache.read(cacheKey);
+            if (sources == null) {
+                return false;
+            }
+
+            for (Map.Entry<String, byte[]> source: sources.entrySet()) {
+                try (OutputStream outputStream = countEmittedBytes(filer.createSourceFile(source.getKey(), classElement).openOutputStream())) {
+                    outputStream.write(source.getValue());
+                }
+            }
+
+            return true;
+        } catch (IOException ex) {
+            printError("Error writing cached source files of %s: %s".formatted(classElement.asType().toString(), ex));
+            return true;
         }
     }
+
+    // Writes the classes generated for a @VersionedPath class and starts a new code model, so only one class is kept in
+    // memory at a time.
+    private void writeClass(Element classElement, String cacheKey) {
+        if (renderExecutor != null) {
+            // The code model doesn't reference the javac model (the element classes are read up front), so it can be
+            // rendered in another thread
+            JCodeModel renderedCodeModel = codeModel;
+            pendingClasses.add(new PendingClass(
+                    classElement,
+                    cacheKey,
+                    Map.copyOf(originatingElements),
+                    classReport,
+                    renderExecutor.submit(() -> render(renderedCodeModel))
+            ));
+        } else {
+            try {
+                CodeWriter codeWriter = new AnnotationProcessingCodeWriter(filer, originatingElements);
+                if (classReport != null) {
+                    codeWriter = classReport.countEmittedBytes(codeWriter);
+                }
+
+                if (cacheKey == null) {
+                    codeModel.build(codeWriter);
+                } else {
+                    GenerationCache.CapturingCodeWriter capturingCodeWriter = new GenerationCache.CapturingCodeWriter(codeWriter);
+                    codeModel.build(capturingCodeWriter);
+                    writeCacheEntry(classElement, cacheKey, capturedSources(capturingCodeWriter, originatingElements.keySet()));
+                }
+            } catch (IOException ex) {
+                printError("Error writing source files: " + ex);
+            }
+        }
+
+        originatingElements.clear();
+        setCodeModel(new JCodeModel());
+    }
+
+    // Writes the classes rendered by renderExecutor, in the order they were processed
+    private void writePendingClasses() {
+        for (PendingClass pendingClass: pendingClasses) {
+            classReport = pendingClass.classReport();
+            long start = System.nanoTime();
+
+            try {
+                RenderedClass renderedClass = pendingClass.renderedClass().get();
+                Map<String, byte[]> sources = capturedSources(renderedClass.sources(), pendingClass.originatingElements().keySet());
+
+                for (Map.Entry<String, byte[]> source: sources.entrySet()) {
+                    Element originatingElement = pendingClass.originatingElements().get(source.getKey());
+                    try (OutputStream outputStream = countEmittedBytes(filer.createSourceFile(source.getKey(), originatingElement).openOutputStream())) {
+                        outputStream.write(source.getValue());
+                    }
+                }
+
+                if (pendingClass.cacheKey() != null) {
+                    writeCacheEntry(pendingClass.classElement(), pendingClass.cacheKey(), sources);
+                }
+
+                if (classReport != null) {
+                    classReport.add(ProcessingReport.Phase.WRITING, renderedClass.nanos() + System.nanoTime() - start);
+                }
+            } catch (IOException ex) {
+                printError("Error writing source files: " + ex);
+            } catch (ExecutionException ex) {
+                printError("Error writing source files of %s: %s".formatted(pendingClass.classElement().asType().toString(), ex.getCause()));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                printError("Interrupted while writing source files of " + pendingClass.classElement().asType().toString());
+            }
+        }
+
+        pendingClasses.clear();
+        classReport = null;
+    }
+
+    private static RenderedClass render(JCodeModel codeModel) throws IOException {
+        long start = System.nanoTime();
+        GenerationCache.CapturingCodeWriter capturingCodeWriter = new GenerationCache.CapturingCodeWriter(new CodeWriter() {
+            @Override
+            public OutputStream openBinary(JPackage jPackage, String name) {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        codeModel.build(capturingCodeWriter);
+        return new RenderedClass(capturingCodeWriter, System.nanoTime() - start);
+    }
+
+    private static ExecutorService createRenderExecutor(int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return new ThreadPoolExecutor(
+                threads,
+                threads,
+                0,
+                TimeUnit.MILLISECONDS,
+                // Bounded, so only a few code models per thread wait in memory to be rendered
+                new ArrayBlockingQueue<>(threads * 2),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "versioned-path-render-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                // When the queue is full the processor renders the class itself
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+    }
+
+    // Sorted by class name, so they are always written in the same order
+    private static Map<String, byte[]> capturedSources(GenerationCache.CapturingCodeWriter capturingCodeWriter, Collection<String> classNames) {
+        Map<String, byte[]> sources = new TreeMap<>();
+        for (String className: classNames) {
+            sources.put(className, capturingCodeWriter.getCaptured(className));
+        }
+
+        return sources;
+    }
+
+    private void writeCacheEntry(Element classElement, String cacheKey, Map<String, byte[]> sources) {
+        try {
+            generationCache.write(cacheKey, sources);
+        } catch (IOException ex) {
+            // The cache is only an optimization, the sources were already written
+            messager.printMessage(Diagnostic.Kind.WARNING, "Unable to cache the source files of %s: %s".formatted(classElement.asType().toString(), ex));
+        }
+    }
+
+    // Besides the versioned methods, the JAX-RS methods of the class are in every version.
+    private void addRoutes(Element classElement, ClassPlan plan) {
+        if (routesByPackage == null) {
+            return;
+        }
+
+        VersionedPath versionedPath = plan.versionedPath();
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = plan.endpointsByVersion();
+        Set<ExecutableElement> versionedMethods = new HashSet<>();
+        for (VersionedEndpoint endpoint: plan.endpoints()) {
+            versionedMethods.add(endpoint.method());
+        }
+
+        String packageName = elements.getPackageOf(classElement).getQualifiedName().toString();
+        String className = ((TypeElement) classElement).getQualifiedName().toString();
+
+        // Read once, they are the same in every version
+        List<RestRoute> restRoutes = new ArrayList<>();
+        for (Element enclosedElement: classElement.getEnclosedElements()) {
+            if (enclosedElement.getKind() != ElementKind.METHOD || versionedMethods.contains(enclosedElement)) {
+                continue;
+            }
+
+            Path path = enclosedElement.getAnnotation(Path.class);
+            String template = RouteTable.normalizePath(path != null ? versionedPath.path() + "/" + path.value() : versionedPath.path());
+            for (VersionedMethod.HttpMethod httpMethod: VersionedMethod.HttpMethod.values()) {
+                if (enclosedElement.getAnnotation(toRestMethodAnnotation(httpMethod)) != null) {
+                    restRoutes.add(new RestRoute(httpMethod.name(), template, className + "#" + enclosedElement.getSimpleName()));
+                }
+            }
+        }
+
+        List<Route> routes = routesByPackage.computeIfAbsent(packageName, key -> new ArrayList<>());
+        routesOriginatingElements.computeIfAbsent(packageName, key -> new ArrayList<>()).add(classElement);
+
+        for (Map.Entry<Version, List<VersionedEndpoint>> versionEndpoints: endpointsByVersion.entrySet()) {
+            Version version = versionEndpoints.getKey();
+            if (includedVersions != null && !includedVersions.contains(version)) {
+                continue;
+            }
+
+            List<Version> routeVersions = List.of(version);
+            for (VersionedEndpoint endpoint: versionEndpoints.getValue()) {
+                String template = RouteTable.normalizePath(endpoint.path() != null ? versionedPath.path() + "/" + endpoint.path() : versionedPath.path());
+                routes.add(new Route(
+                        version.getPackedKey(),
+                        endpoint.httpMethod().name(),
+                        toPath(template, routeVersions),
+                        template,
+                        className + "#" + endpoint.method().getSimpleName()
+                ));
+            }
+
+            for (RestRoute restRoute: restRoutes) {
+                routes.add(new Route(
+                        version.getPackedKey(),
+                        restRoute.httpMethod(),
+                        toPath(restRoute.template(), routeVersions),
+                        restRoute.template(),
+                        restRoute.method()
+                ));
+            }
+        }
+    }
+
+    // A VersionedRoutes class for every package with routes in this round, tied to all the classes of the package
+    private void writeRoutes() {
+        if (routesByPackage == null) {
+            return;
+        }
+
+        for (Map.Entry<String, List<Route>> packageRoutes: routesByPackage.entrySet()) {
+            String packageName = packageRoutes.getKey();
+            String name = packageName.isEmpty() ? ROUTES_CLASS_NAME : packageName + "." + ROUTES_CLASS_NAME;
+            if (!routesPackages.add(packageName)) {
+                printError("%s was already generated in a previous round, all the @VersionedPath classes of a package must be in the same round".formatted(name));
+                continue;
+            }
+
+            List<Route> routes = packageRoutes.getValue();
+            routes.sort((left, right) -> RouteTable.compare(left.path(), left.httpMethod(), left.version(), right.path(), right.httpMethod(), right.version()));
+            for (int i = 1; i < routes.size(); i++) {
+                Route previous = routes.get(i - 1);
+                Route route = routes.get(i);
+                if (previous.version() == route.version() && previous.httpMethod().equals(route.httpMethod()) && previous.path().equals(route.path())) {
+                    messager.printMessage(Diagnostic.Kind.WARNING, "%s %s is served by %s and %s in version %s".formatted(
+                            route.httpMethod(), route.path(), previous.method(), route.method(), Version.fromPackedKey(route.version())
+                    ));
+                }
+            }
+
+            Element[] originatingElements = routesOriginatingElements.get(packageName).toArray(new Element[0]);
+            try {
+                createRoutesClasses(packageName, routes, routeFilter).build(new CodeWriter() {
+                    @Override
+                    public OutputStream openBinary(JPackage jPackage, String fileName) throws IOException {
+                        String simpleName = fileName.substring(0, fileName.length() - ".java".length());
+                        String className = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+                        return filer.createSourceFile(className, originatingElements).openOutputStream();
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                });
+            } catch (IOException ex) {
+                printError("Error writing source file %s: %s".formatted(name, ex));
+            }
+        }
+
+        routesByPackage.clear();
+        routesOriginatingElements.clear();
+    }
+
+    //   public final class VersionedRoutes {
+    //       private static final long[] VERSIONS = {...};
+    //       private static final String[] HTTP_METHODS = {...};
+    //       private static final String[] PATHS = {...};
+    //       private static final String[] METHODS = {...};
+    //       public static final RouteTable ROUTES = new RouteTable(VERSIONS, HTTP_METHODS, PATHS, METHODS);
+    //       static final String[] TEMPLATES = {...};
+    //   }
+    // and with the filter:
+    //   @Provider
+    //   @PreMatching
+    //   public class VersionedRoutesFilter extends RouteTrieFilter {
+    //       private static final RouteTrie TRIE = new RouteTrie(VersionedRoutes.ROUTES, VersionedRoutes.TEMPLATES);
+    //       public VersionedRoutesFilter() { super(VersionedRoutes.ROUTES, TRIE); }
+    //   }
+    static JCodeModel createRoutesClasses(String packageName, List<Route> routes, boolean routeFilter) {
+        JCodeModel routesCodeModel = new JCodeModel();
+        JDefinedClass klass;
+        JDefinedClass filterClass = null;
+        try {
+            JPackage jPackage = routesCodeModel._package(packageName);
+            klass = jPackage._class(JMod.PUBLIC | JMod.FINAL, ROUTES_CLASS_NAME, ClassType.CLASS);
+            if (routeFilter) {
+                filterClass = jPackage._class(JMod.PUBLIC, ROUTE_FILTER_CLASS_NAME, ClassType.CLASS);
+            }
+        } catch (JClassAlreadyExistsException classAlreadyExistsException) {
+            throw new IllegalStateException("Fresh code model", classAlreadyExistsException);
+        }
+        klass.constructor(JMod.PRIVATE);
+
+        JArray versions = JExpr.newArray(routesCodeModel.LONG);
+        JArray httpMethods = JExpr.newArray(routesCodeModel.ref(String.class));
+        JArray paths = JExpr.newArray(routesCodeModel.ref(String.class));
+        JArray methods = JExpr.newArray(routesCodeModel.ref(String.class));
+        JArray templates = JExpr.newArray(routesCodeModel.ref(String.class));
+        for (Route route: routes) {
+            versions.add(JExpr.lit(route.version()));
+            httpMethods.add(JExpr.lit(route.httpMethod()));
+            paths.add(JExpr.lit(route.path()));
+            methods.add(JExpr.lit(route.method()));
+            templates.add(JExpr.lit(route.template()));
+        }
+
+        int constant = JMod.PRIVATE | JMod.STATIC | JMod.FINAL;
+        JFieldVar routesField = klass.field(JMod.PUBLIC | JMod.STATIC | JMod.FINAL, RouteTable.class, "ROUTES", JExpr._new(routesCodeModel.ref(RouteTable.class))
+                .arg(klass.field(constant, long[].class, "VERSIONS", versions))
+                .arg(klass.field(constant, String[].class, "HTTP_METHODS", httpMethods))
+                .arg(klass.field(constant, String[].class, "PATHS", paths))
+                .arg(klass.field(constant, String[].class, "METHODS", methods))
+        );
+        // Only for the filter of the package
+        JFieldVar templatesField = klass.field(JMod.STATIC | JMod.FINAL, String[].class, "TEMPLATES", templates);
+
+        if (filterClass != null) {
+            filterClass.annotate(Provider.class);
+            filterClass.annotate(PreMatching.class);
+            filterClass._extends(RouteTrieFilter.class);
+
+            JFieldVar trieField = filterClass.field(constant, RouteTrie.class, "TRIE", JExpr._new(routesCodeModel.ref(RouteTrie.class))
+                    .arg(klass.staticRef(routesField))
+                    .arg(klass.staticRef(templatesField))
+            );
+            filterClass.constructor(JMod.PUBLIC).body().invoke("super").arg(klass.staticRef(routesField)).arg(trieField);
+        }
+
+        return routesCodeModel;
+    }
+
+    // Version as a packed key, see RouteTable. The template is the path with $version.
+    record Route(long version, String httpMethod, String path, String template, String method) {
+    }
+
+    // A route of a plain JAX-RS method of a @VersionedPath class, without its version
+    private record RestRoute(String httpMethod, String template, String method) {
+    }
+
+    private record ClassPlan(
+            VersionedPath versionedPath,
+            List<VersionedEndpoint> endpoints,
+            Map<Version, List<VersionedEndpoint>> endpointsByVersion
+    ) {
+    }
+
+    private record PendingClass(
+            Element classElement,
+            String cacheKey,
+            Map<String, Element> originatingElements,
+            ProcessingReport.ClassReport classReport,
+            Future<RenderedClass> renderedClass
+    ) {
+    }
+
+    private record RenderedClass(GenerationCache.CapturingCodeWriter sources, long nanos) {
+    }
+
+    private void lap(ProcessingReport.Phase phase) {
+        if (classReport != null) {
+            classReport.lap(phase);
+        }
+    }
+
+    private OutputStream countEmittedBytes(OutputStream outputStream) {
+        return classReport != null ? classReport.countEmittedBytes(outputStream) : outputStream;
+    }
+
+    private void writeReport() {
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", REPORT_FILE_NAME).openWriter()) {
+            writer.write(report.toJson());
+        } catch (IOException ex) {
+            // Only diagnostics, the generated classes are fine
+            messager.printMessage(Diagnostic.Kind.WARNING, "Unable to write %s: %s".formatted(REPORT_FILE_NAME, ex));
+        }
+
+        messager.printMessage(Diagnostic.Kind.NOTE, report.summary());
+    }
+
+    private void printError(String message) {
+        ++errorCount;
+        messager.printMessage(Diagnostic.Kind.ERROR, message);
+    }
+
+    private void printError(String message, Element element) {
+        ++errorCount;
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
 }
@@ -0,0 +1,47 @@
+package ga.josejulio.versioned.path;
+
+import javax.lang.model.element.ExecutableElement;
+
+/**
+ * What the processor needs to know about a versioned method, read from its annotations once.
+ *
+ * @param method the annotated method
+ * @param sinceVersion version the method was introduced in, the class version if not set
+ * @param removedInVersion first version without the method, null if it's never removed
+ * @param httpMethod http method of the endpoint
+ * @param path raw path of the endpoint (still containing {@code $version}), null without {@link VersionedPath}
+ * @param key identifies the endpoint across versions, methods with the same key replace each other
+ */
+record VersionedEndpoint(ExecutableElement method, Version sinceVersion, Version removedInVersion, VersionedMethod.HttpMethod httpMethod, String path, String key) {
+
+    /**
+     * Returns the endpoint of the method, or null if the method has neither {@link VersionedPath} nor
+     * {@link VersionedMethod}.
+     */
+    static VersionedEndpoint of(ExecutableElement method, Version classVersion) {
+        VersionedPath versionedPath = method.getAnnotation(VersionedPath.class);
+        VersionedMethod versionedMethod = method.getAnnotation(VersionedMethod.class);
+        if (versionedPath == null && versionedMethod == null) {
+            return null;
+        }
+
+        Version sinceVersion = classVersion;
+        Version removedInVersion = null;
+        String path = null;
+        if (versionedPath != null) {
+            path = versionedPath.path();
+            if (!versionedPath.sinceVersion().isBlank()) {
+                sinceVersion = Version.parse(versionedPath.sinceVersion());
+            }
+
+            if (!versionedPath.removedInVersion().isBlank()) {
+                removedInVersion = Version.parse(versionedPath.removedInVersion());
+            }
+        }
+
+        VersionedMethod.HttpMethod httpMethod = versionedMethod != null ? versionedMethod.value() : VersionedMethod.HttpMethod.GET;
+        String key = "%s_%s".formatted(httpMethod.name(), path != null ? path : "");
+
+        return new VersionedEndpoint(method, sinceVersion, removedInVersion, httpMethod, path, key);
+    }
+}
@@ -0,0 +1,150 @@
+package ga.josejulio.versioned.path;
+
+import com.karuslabs.elementary.junit.Cases;
+import com.karuslabs.elementary.junit.Tools;
+import com.karuslabs.elementary.junit.ToolsExtension;
+import com.karuslabs.elementary.junit.annotations.Case;
+import com.karuslabs.elementary.junit.annotations.Introspect;
+import com.sun.codemodel.JCodeModel;
+import ga.josejulio.annotation.processor.codemodel.toolkit.AnnotationProcessingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PUT;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.QueryParam;
+import java.io.IOException;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(ToolsExtension.class)
+@Introspect
+public class BytecodeClassTest {
+
+    private static final String CASE_BYTECODE_CLASS = "BYTECODE_CLASS";
+    private static final String CASE_PARAMETERS_CONSTRUCTOR = "PARAMETERS_CONSTRUCTOR";
+    private static final String CASE_PRIVATE_CONSTRUCTOR = "PRIVATE_CONSTRUCTOR";
+    private static final String CASE_PACKAGE_CONSTRUCTOR = "PACKAGE_CONSTRUCTOR";
+
+    @Retention(RetentionPolicy.RUNTIME)
+    public @interface Tagged {
+        VersionedMethod.HttpMethod method();
+        Class<?>[] types();
+    }
+
+    @VersionedPath(sinceVersion = "1.0", path = "/api/$version/")
+    @Tagged(method = VersionedMethod.HttpMethod.POST, types = { String.class, int[].class })
+    @Case(CASE_BYTECODE_CLASS)
+    public static class BytecodeSample {
+
+        @VersionedPath(sinceVersion = "1.0", path = "names")
+        public List<String> names(@QueryParam("prefix") String prefix, long limit) throws IOException {
+            return List.of(prefix + limit);
+        }
+
+        @VersionedPath(sinceVersion = "1.0", path = "stuff")
+        @VersionedMethod(VersionedMethod.HttpMethod.PUT)
+        public double stuff(int[] values, double factor) {
+            return values.length * factor;
+        }
+    }
+
+    @Case(CASE_PARAMETERS_CONSTRUCTOR)
+    public static class ParametersConstructorSample {
+        public ParametersConstructorSample(String name) {
+        }
+    }
+
+    @Case(CASE_PRIVATE_CONSTRUCTOR)
+    public static class PrivateConstructorSample {
+        private PrivateConstructorSample() {
+        }
+    }
+
+    @Case(CASE_PACKAGE_CONSTRUCTOR)
+    public static class PackageConstructorSample {
+        PackageConstructorSample() {
+        }
+    }
+
+    @Test
+    public void bytecodeClassTest(Cases cases) throws Exception {
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.init(new JCodeModel(), Tools.elements(), Tools.messager(), Tools.filer(), Tools.types());
+
+        Element element = cases.one(CASE_BYTECODE_CLASS);
+        Version version = Version.parse("1.0");
+        List<VersionedEndpoint> endpoints = element.getEnclosedElements()
+                .stream()
+                .filter(enclosed -> enclosed instanceof ExecutableElement)
+                .map(enclosed -> VersionedEndpoint.of((ExecutableElement) enclosed, version))
+                .filter(endpoint -> endpoint != null)
+                .toList();
+
+        String name = "ga.josejulio.versioned.path.BytecodeSampleV1_0";
+        byte[] bytecode = versionedAnnotationProcessor.createBytecodeClass(name, element, "/api/$version/", List.of(version), endpoints);
+        Class<?> klass = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define() {
+                return defineClass(name, bytecode, 0, bytecode.length);
+            }
+        }.define();
+
+        assertEquals(BytecodeSample.class, klass.getSuperclass());
+        assertEquals("/api/1.0/", klass.getAnnotation(Path.class).value());
+        assertNull(klass.getAnnotation(VersionedPath.class));
+
+        Tagged tagged = klass.getAnnotation(Tagged.class);
+        assertEquals(VersionedMethod.HttpMethod.POST, tagged.method());
+        assertArrayEquals(new Class<?>[] { String.class, int[].class }, tagged.types());
+
+        Object instance = klass.getConstructor().newInstance();
+
+        Method names = klass.getDeclaredMethod("names", String.class, long.class);
+        assertEquals("names", names.getAnnotation(Path.class).value());
+        assertNotNull(names.getAnnotation(GET.class));
+        assertEquals("java.util.List<java.lang.String>", names.getGenericReturnType().getTypeName());
+        assertArrayEquals(new Class<?>[] { IOException.class }, names.getExceptionTypes());
+        assertEquals("prefix", names.getParameters()[0].getName());
+        assertEquals("prefix", ((QueryParam) names.getParameterAnnotations()[0][0]).value());
+        assertEquals(List.of("a5"), names.invoke(instance, "a", 5L));
+
+        Method stuff = klass.getDeclaredMethod("stuff", int[].class, double.class);
+        assertEquals("stuff", stuff.getAnnotation(Path.class).value());
+        assertNotNull(stuff.getAnnotation(PUT.class));
+        assertEquals(6.0, stuff.invoke(instance, new int[] { 1, 2, 3 }, 2.0));
+    }
+
+    @Test
+    public void noArgConstructorTest(Cases cases) {
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.init(new JCodeModel(), Tools.elements(), Tools.messager(), Tools.filer(), Tools.types());
+        List<Version> versions = List.of(Version.parse("1.0"));
+
+        AnnotationProcessingException exception = assertThrows(AnnotationProcessingException.class, () -> versionedAnnotationProcessor.createBytecodeClass(
+                "ga.josejulio.versioned.path.ParametersConstructorSampleV1_0", cases.one(CASE_PARAMETERS_CONSTRUCTOR), "/api/$version/", versions, List.of()
+        ));
+        assertEquals("Unable to extend from ParametersConstructorSample, it has no accessible constructor without parameters", exception.getMessage());
+        assertThrows(AnnotationProcessingException.class, () -> versionedAnnotationProcessor.createBytecodeClass(
+                "ga.josejulio.versioned.path.PrivateConstructorSampleV1_0", cases.one(CASE_PRIVATE_CONSTRUCTOR), "/api/$version/", versions, List.of()
+        ));
+
+        // Package private constructors can only be called from the same package
+        assertNotNull(versionedAnnotationProcessor.createBytecodeClass(
+                "ga.josejulio.versioned.path.PackageConstructorSampleV1_0", cases.one(CASE_PACKAGE_CONSTRUCTOR), "/api/$version/", versions, List.of()
+        ));
+        assertThrows(AnnotationProcessingException.class, () -> versionedAnnotationProcessor.createBytecodeClass(
+                "org.acme.PackageConstructorSampleV1_0", cases.one(CASE_PACKAGE_CONSTRUCTOR), "/api/$version/", versions, List.of()
+        ));
+    }
+}
@@ -0,0 +1,81 @@
+package ga.josejulio.versioned.path;
+
+import com.karuslabs.elementary.junit.Cases;
+import com.karuslabs.elementary.junit.ToolsExtension;
+import com.karuslabs.elementary.junit.annotations.Case;
+import com.karuslabs.elementary.junit.annotations.Introspect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.lang.model.element.Element;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(ToolsExtension.class)
+@Introspect
+public class GenerationCacheTest {
+
+    private static final String CASE_FIRST_CLASS = "FIRST_CLASS";
+    private static final String CASE_SECOND_CLASS = "SECOND_CLASS";
+
+    @VersionedPath(sinceVersion = "1.0", path = "/api/$version/")
+    @Case(CASE_FIRST_CLASS)
+    class First {
+        @VersionedPath(sinceVersion = "2.0", path = "stuff")
+        public int stuff() {
+            return 1;
+        }
+    }
+
+    @VersionedPath(sinceVersion = "1.0", path = "/api/$version/")
+    @Case(CASE_SECOND_CLASS)
+    class Second {
+        @VersionedPath(sinceVersion = "3.0", path = "stuff")
+        public int stuff() {
+            return 1;
+        }
+    }
+
+    @Test
+    public void computeKeyTest(Cases cases) {
+        GenerationCache generationCache = new GenerationCache(Path.of("unused"));
+        Element first = cases.one(CASE_FIRST_CLASS);
+        Element second = cases.one(CASE_SECOND_CLASS);
+
+        assertEquals(generationCache.computeKey(first), generationCache.computeKey(first));
+        assertNotEquals(generationCache.computeKey(first), generationCache.computeKey(second));
+
+        // Same key without configuration, a different one with it
+        assertEquals(generationCache.computeKey(first), new GenerationCache(Path.of("unused"), "").computeKey(first));
+        assertNotEquals(generationCache.computeKey(first), new GenerationCache(Path.of("unused"), "versioned.path.include=>=2").computeKey(first));
+
+        assertNotNull(GenerationCache.PROCESSOR_VERSION);
+    }
+
+    @Test
+    public void readWriteTest(@TempDir Path directory) throws IOException {
+        GenerationCache generationCache = new GenerationCache(directory.resolve("cache"));
+        assertNull(generationCache.read("key"));
+
+        byte[] source = "class FooV1_0 {}".getBytes(StandardCharsets.UTF_8);
+        generationCache.write("key", Map.of("foo.FooV1_0", source));
+
+        Map<String, byte[]> sources = generationCache.read("key");
+        assertEquals(1, sources.size());
+        assertArrayEquals(source, sources.get("foo.FooV1_0"));
+
+        // Writing an existing entry keeps the first one
+        generationCache.write("key", Map.of("foo.FooV2_0", source));
+        assertEquals(Set.of("foo.FooV1_0"), generationCache.read("key").keySet());
+    }
+}
@@ -0,0 +1,154 @@
+package ga.josejulio.versioned.path;
+
+import com.sun.source.util.JavacTask;
+
+import javax.annotation.processing.Processor;
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles sources with the system {@link JavaCompiler} keeping every output (class files and generated sources) in
+ * memory, so benchmarks don't measure the disk.
+ */
+class InMemoryCompiler {
+
+    private static final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+
+    /**
+     * Compiles the sources running the processors, returns the written files by path, e.g.
+     * {@code CLASS_OUTPUT/package/Name.class}.
+     *
+     * @throws IllegalStateException if the compilation fails.
+     */
+    static Map<String, byte[]> compile(List<JavaFileObject> sources, List<String> processorOptions, Processor... processors) {
+        List<String> options = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path"), "-implicit:none"));
+        for (String processorOption: processorOptions) {
+            options.add("-A" + processorOption);
+        }
+
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (MemoryFileManager fileManager = new MemoryFileManager(compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8))) {
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, sources);
+            task.setProcessors(List.of(processors));
+            if (!task.call()) {
+                throw new IllegalStateException("Compilation failed: " + errors(diagnostics));
+            }
+
+            Map<String, byte[]> outputs = new LinkedHashMap<>();
+            for (MemoryFileObject output: fileManager.outputs) {
+                outputs.put(output.toUri().getPath().substring(1), output.content.toByteArray());
+            }
+
+            return outputs;
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Parses and attributes the sources without running any processor, to get hold of their elements.
+     */
+    static JavacTask analyze(List<JavaFileObject> sources) {
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavacTask task = (JavacTask) compiler.getTask(
+                null,
+                null,
+                diagnostics,
+                List.of("-classpath", System.getProperty("java.class.path"), "-proc:none"),
+                null,
+                sources
+        );
+
+        try {
+            task.analyze();
+        } catch (IOException ex) {
+            throw new IllegalStateException(ex);
+        }
+
+        if (diagnostics.getDiagnostics().stream().anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)) {
+            throw new IllegalStateException("Compilation failed: " + errors(diagnostics));
+        }
+
+        return task;
+    }
+
+    private static String errors(DiagnosticCollector<JavaFileObject> diagnostics) {
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic: diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append('\n').append(diagnostic);
+            }
+        }
+
+        return errors.toString();
+    }
+
+    private static class MemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+
+        private final List<MemoryFileObject> outputs = new ArrayList<>();
+
+        MemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(JavaFileManager.Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+            MemoryFileObject output = new MemoryFileObject(URI.create("mem:///" + location.getName() + "/" + className.replace('.', '/') + kind.extension), kind);
+            outputs.add(output);
+            return output;
+        }
+
+        @Override
+        public FileObject getFileForOutput(JavaFileManager.Location location, String packageName, String relativeName, FileObject sibling) {
+            String path = packageName.isEmpty() ? relativeName : packageName.replace('.', '/') + "/" + relativeName;
+            MemoryFileObject output = new MemoryFileObject(URI.create("mem:///" + location.getName() + "/" + path), JavaFileObject.Kind.OTHER);
+            outputs.add(output);
+            return output;
+        }
+    }
+
+    private static class MemoryFileObject extends SimpleJavaFileObject {
+
+        private final ByteArrayOutputStream content = new ByteArrayOutputStream();
+
+        MemoryFileObject(URI uri, Kind kind) {
+            super(uri, kind);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            content.reset();
+            return content;
+        }
+
+        // Generated sources and class files are read back by javac in the next round
+        @Override
+        public InputStream openInputStream() {
+            return new ByteArrayInputStream(content.toByteArray());
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
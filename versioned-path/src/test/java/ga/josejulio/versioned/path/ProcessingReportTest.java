@@ -0,0 +1,82 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ProcessingReportTest {
+
+    @Test
+    void reportTest() throws IOException {
+        ProcessingReport report = new ProcessingReport("codemodel");
+        report.startRound();
+
+        ProcessingReport.ClassReport classReport = report.startClass("org.acme.\"Quoted\"");
+        for (ProcessingReport.Phase phase: ProcessingReport.Phase.values()) {
+            classReport.lap(phase);
+        }
+        classReport.addGeneratedClass(3);
+        classReport.addGeneratedClass(2);
+        try (OutputStream outputStream = classReport.countEmittedBytes(new ByteArrayOutputStream())) {
+            outputStream.write(new byte[10], 2, 5);
+            outputStream.write(1);
+        }
+
+        report.endRound();
+        report.startRound();
+        report.endRound();
+
+        String json = report.toJson();
+        assertTrue(json.contains("\"backend\": \"codemodel\""), json);
+        assertTrue(json.contains("\"class\": \"org.acme.\\\"Quoted\\\"\""), json);
+        assertTrue(json.contains("\"generatedClasses\": 2, \"generatedMethods\": 5, \"emittedBytes\": 6"), json);
+        assertTrue(json.contains("\"rounds\": 2}"), json);
+        assertTrue(json.contains("{\"round\": 2, "), json);
+        assertTrue(json.contains("\"phaseNanos\": {\"collection\": "), json);
+
+        String summary = report.summary();
+        assertTrue(summary.startsWith("versioned-path: 1 classes in 2 rounds generated 2 classes (5 methods, 6 bytes) in "), summary);
+        assertTrue(summary.contains("planning "), summary);
+    }
+
+    @Test
+    void processorWritesReportTest() {
+        Map<String, byte[]> outputs = InMemoryCompiler.compile(
+                SyntheticSources.generate(2, new SyntheticSources.Shape(4, 2, 1, 0)),
+                List.of(VersionedAnnotationProcessor.REPORT_OPTION + "=json"),
+                new VersionedAnnotationProcessor()
+        );
+
+        byte[] reportBytes = outputs.get("CLASS_OUTPUT/" + VersionedAnnotationProcessor.REPORT_FILE_NAME);
+        assertNotNull(reportBytes, outputs.keySet().toString());
+
+        String json = new String(reportBytes, StandardCharsets.UTF_8);
+        assertTrue(json.contains("\"class\": \"" + SyntheticSources.qualifiedClassName(0) + "\""), json);
+        assertTrue(json.contains("\"class\": \"" + SyntheticSources.qualifiedClassName(1) + "\""), json);
+
+        // Two versions of both resources, every version with 2 of the 4 methods
+        Matcher totals = Pattern.compile("\"totals\": \\{\"generatedClasses\": (\\d+), \"generatedMethods\": (\\d+), \"emittedBytes\": (\\d+)").matcher(json);
+        assertTrue(totals.find(), json);
+        assertEquals("4", totals.group(1));
+        assertEquals("8", totals.group(2));
+
+        long sourceBytes = 0;
+        for (Map.Entry<String, byte[]> output: outputs.entrySet()) {
+            if (output.getKey().startsWith("SOURCE_OUTPUT/")) {
+                sourceBytes += output.getValue().length;
+            }
+        }
+        assertEquals(String.valueOf(sourceBytes), totals.group(3));
+    }
+}
@@ -0,0 +1,130 @@
+package ga.josejulio.versioned.path;
+
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generates {@code @VersionedPath} resources to feed the processor, for the scaling tests and the benchmarks.
+ * <p>
+ * Methods are spread over the versions "1.0" to "1.{versions - 1}", and every two consecutive methods share the same
+ * endpoint, so the second one replaces the first in a later version.
+ */
+class SyntheticSources {
+
+    static final String PACKAGE_NAME = "synthetic";
+
+    // Method annotations added by the annotation density, all copied to the generated classes
+    private static final List<String> METHOD_ANNOTATIONS = List.of(
+            "@Consumes(\"application/json\")",
+            "@Produces({\"application/json\", \"text/plain\"})",
+            "@Deprecated",
+            "@Encoded",
+            "@DefaultValue(\"none\")"
+    );
+
+    /**
+     * Shape of every generated resource.
+     *
+     * @param methods versioned methods of the resource, and of each inner class
+     * @param versions versions the methods are spread over
+     * @param annotations extra annotations of every method, up to 5
+     * @param innerClasses {@code @VersionedPath} static inner classes of the resource
+     */
+    record Shape(int methods, int versions, int annotations, int innerClasses) {
+
+        Shape {
+            if (methods < 0 || versions < 1 || annotations < 0 || annotations > METHOD_ANNOTATIONS.size() || innerClasses < 0) {
+                throw new IllegalArgumentException("Invalid shape: %d methods, %d versions, %d annotations, %d inner classes".formatted(methods, versions, annotations, innerClasses));
+            }
+        }
+
+        Shape withMethods(int methods) {
+            return new Shape(methods, versions, annotations, innerClasses);
+        }
+
+        // Classes generated for every resource
+        int generatedClasses() {
+            return (innerClasses + 1) * Math.min(versions, Math.max(methods, 1));
+        }
+    }
+
+    static List<JavaFileObject> generate(int resources, Shape shape) {
+        List<JavaFileObject> sources = new ArrayList<>(resources);
+        for (int i = 0; i < resources; i++) {
+            sources.add(source(className(i), resource(i, shape)));
+        }
+
+        return sources;
+    }
+
+    static String className(int resource) {
+        return "Resource" + resource;
+    }
+
+    static String qualifiedClassName(int resource) {
+        return PACKAGE_NAME + "." + className(resource);
+    }
+
+    static String resource(int resource, Shape shape) {
+        StringBuilder source = new StringBuilder()
+                .append("package ").append(PACKAGE_NAME).append(";\n\n")
+                .append("import ga.josejulio.versioned.path.VersionedMethod;\n")
+                .append("import ga.josejulio.versioned.path.VersionedPath;\n")
+                .append("import jakarta.ws.rs.Consumes;\n")
+                .append("import jakarta.ws.rs.DefaultValue;\n")
+                .append("import jakarta.ws.rs.Encoded;\n")
+                .append("import jakarta.ws.rs.Produces;\n")
+                .append("import jakarta.ws.rs.QueryParam;\n\n");
+
+        appendClass(source, "", "public class " + className(resource), "/api/v$version/resource" + resource, shape, shape.innerClasses());
+
+        return source.toString();
+    }
+
+    static String version(int minor) {
+        return "1." + minor;
+    }
+
+    static JavaFileObject source(String className, String source) {
+        String path = PACKAGE_NAME.replace('.', '/') + "/" + className + JavaFileObject.Kind.SOURCE.extension;
+        return new SimpleJavaFileObject(URI.create("string:///" + path), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+    }
+
+    private static void appendClass(StringBuilder source, String indent, String declaration, String path, Shape shape, int innerClasses) {
+        source.append(indent).append("@VersionedPath(path = \"").append(path).append("\", sinceVersion = \"1.0\")\n")
+                .append(indent).append("@Produces({\"application/json\", \"text/plain\"})\n")
+                .append(indent).append(declaration).append(" {\n");
+
+        for (int method = 0; method < shape.methods(); method++) {
+            // With a single version, every method needs its own endpoint
+            int endpoint = shape.versions() > 1 ? method / 2 : method;
+
+            source.append("\n")
+                    .append(indent).append("    @VersionedPath(path = \"/endpoint").append(endpoint).append("\", sinceVersion = \"").append(version(method % shape.versions())).append("\")\n")
+                    .append(indent).append("    @VersionedMethod(VersionedMethod.HttpMethod.").append(endpoint % 3 == 0 ? "POST" : "GET").append(")\n");
+
+            for (int annotation = 0; annotation < shape.annotations(); annotation++) {
+                source.append(indent).append("    ").append(METHOD_ANNOTATIONS.get(annotation)).append("\n");
+            }
+
+            source.append(indent).append("    public String method").append(method).append("(@QueryParam(\"name\") String name, @QueryParam(\"limit\") int limit) {\n")
+                    .append(indent).append("        return name;\n")
+                    .append(indent).append("    }\n");
+        }
+
+        for (int inner = 0; inner < innerClasses; inner++) {
+            source.append("\n");
+            appendClass(source, indent + "    ", "public static class Inner" + inner, path + "/inner" + inner, shape, 0);
+        }
+
+        source.append(indent).append("}\n");
+    }
+}
@@ -0,0 +1,64 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class VersionRangeTest {
+
+    @Test
+    public void operatorsTest() {
+        assertTrue(VersionRange.parse(">=3.0").contains(Version.parse("3")));
+        assertTrue(VersionRange.parse(">=3.0").contains(Version.parse("3.0.1")));
+        assertFalse(VersionRange.parse(">=3.0").contains(Version.parse("2.9")));
+
+        assertFalse(VersionRange.parse(">3.0").contains(Version.parse("3.0.0")));
+        assertTrue(VersionRange.parse(">3.0").contains(Version.parse("3.1")));
+
+        assertTrue(VersionRange.parse("<=3.0").contains(Version.parse("3.0")));
+        assertFalse(VersionRange.parse("<=3.0").contains(Version.parse("3.0.1")));
+
+        assertTrue(VersionRange.parse("<3").contains(Version.parse("2.99")));
+        assertFalse(VersionRange.parse("<3").contains(Version.parse("3")));
+        // Pre-releases come before the release
+        assertTrue(VersionRange.parse("<3").contains(Version.parse("3.0.0-beta")));
+
+        assertTrue(VersionRange.parse("=1.2").contains(Version.parse("1.2.0")));
+        assertTrue(VersionRange.parse("1.2").contains(Version.parse("1.2.0")));
+        assertFalse(VersionRange.parse("1.2").contains(Version.parse("1.2.1")));
+    }
+
+    @Test
+    public void conditionsAndAlternativesTest() {
+        VersionRange range = VersionRange.parse(">=2.0 <4");
+        assertTrue(range.contains(Version.parse("2.0")));
+        assertTrue(range.contains(Version.parse("3.5")));
+        assertFalse(range.contains(Version.parse("4.0")));
+        assertFalse(range.contains(Version.parse("1.9")));
+
+        range = VersionRange.parse(" 1.0 || >= 3.0 ");
+        assertTrue(range.contains(Version.parse("1")));
+        assertFalse(range.contains(Version.parse("1.1")));
+        assertFalse(range.contains(Version.parse("2.0")));
+        assertTrue(range.contains(Version.parse("3.0")));
+        assertEquals("1.0 || >= 3.0", range.toString());
+
+        range = VersionRange.parse(">=1.0,<2.0||>=3.0");
+        assertTrue(range.contains(Version.parse("1.5")));
+        assertFalse(range.contains(Version.parse("2.5")));
+        assertTrue(range.contains(Version.parse("3.5")));
+    }
+
+    @Test
+    public void invalidRangeTest() {
+        assertThrows(RuntimeException.class, () -> VersionRange.parse(""));
+        assertThrows(RuntimeException.class, () -> VersionRange.parse(">="));
+        assertThrows(RuntimeException.class, () -> VersionRange.parse(">=1.x"));
+        assertThrows(RuntimeException.class, () -> VersionRange.parse("1.0 ||"));
+        assertThrows(RuntimeException.class, () -> VersionRange.parse("1.0 | 2.0"));
+        assertThrows(RuntimeException.class, () -> VersionRange.parse("=>1.0"));
+    }
+}
@@ -0,0 +1,108 @@
+package ga.josejulio.versioned.path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.TypeElement;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Compiles {@link SyntheticSources} resources through the processor, and checks that the memory allocated by the
+ * processor grows linearly with the input, to catch quadratic behaviour (e.g. in processClass or
+ * collectMethodsForVersions) before it reaches a big codebase. Allocations don't depend on the machine as times do,
+ * the time is compared with the {@code resources} and {@code methods} of the {@code ProcessorBenchmark}.
+ */
+public class VersionedAnnotationProcessorScalingTest {
+
+    private static final SyntheticSources.Shape SHAPE = new SyntheticSources.Shape(16, 4, 3, 1);
+    private static final int RESOURCES = 8;
+    private static final int FACTOR = 4;
+    // Linear growth is FACTOR, quadratic FACTOR * FACTOR
+    private static final double MAX_GROWTH = FACTOR * 2;
+
+    private static final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @BeforeAll
+    static void warmUp() {
+        measure(RESOURCES, SHAPE);
+    }
+
+    @Test
+    void scalesLinearlyWithResourcesTest() {
+        long small = measure(RESOURCES, SHAPE);
+        long large = measure(RESOURCES * FACTOR, SHAPE);
+
+        assertLinear(small, large);
+    }
+
+    @Test
+    void scalesLinearlyWithMethodsTest() {
+        long small = measure(RESOURCES, SHAPE);
+        long large = measure(RESOURCES, SHAPE.withMethods(SHAPE.methods() * FACTOR));
+
+        assertLinear(small, large);
+    }
+
+    private static void assertLinear(long small, long large) {
+        assertTrue((double) large / small < MAX_GROWTH, "Allocations %d KB -> %d KB".formatted(small / 1024, large / 1024));
+    }
+
+    // Allocated bytes
+    private static long measure(int resources, SyntheticSources.Shape shape) {
+        MeasuredProcessor processor = new MeasuredProcessor();
+        int outputs = InMemoryCompiler.compile(SyntheticSources.generate(resources, shape), List.of(), processor).size();
+
+        // The class files of the resources, and the source and class file of every generated class
+        int generatedClasses = resources * shape.generatedClasses();
+        assertEquals(resources * (shape.innerClasses() + 1) + 2 * generatedClasses, outputs);
+
+        return processor.allocatedBytes;
+    }
+
+    // Only measures the processor, not the compilation around it. javac runs the processor in the calling thread.
+    private static class MeasuredProcessor extends AbstractProcessor {
+
+        private final VersionedAnnotationProcessor processor = new VersionedAnnotationProcessor();
+        private long allocatedBytes;
+
+        @Override
+        public synchronized void init(ProcessingEnvironment processingEnv) {
+            super.init(processingEnv);
+            processor.init(processingEnv);
+        }
+
+        @Override
+        public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnvironment) {
+            long startBytes = threadMXBean.getCurrentThreadAllocatedBytes();
+            try {
+                return processor.process(annotations, roundEnvironment);
+            } finally {
+                allocatedBytes += threadMXBean.getCurrentThreadAllocatedBytes() - startBytes;
+            }
+        }
+
+        @Override
+        public Set<String> getSupportedAnnotationTypes() {
+            return processor.getSupportedAnnotationTypes();
+        }
+
+        @Override
+        public Set<String> getSupportedOptions() {
+            return processor.getSupportedOptions();
+        }
+
+        @Override
+        public SourceVersion getSupportedSourceVersion() {
+            return SourceVersion.latestSupported();
+        }
+    }
+}
@@ -5,37 +5,53 @@ import com.karuslabs.elementary.junit.Tools;
 import com.karuslabs.elementary.junit.ToolsExtension;
 import com.karuslabs.elementary.junit.annotations.Case;
 import com.karuslabs.elementary.junit.annotations.Introspect;
+import ga.josejulio.annotation.processor.codemodel.toolkit.TemplateClassWriter;
+import com.sun.codemodel.CodeWriter;
 import com.sun.codemodel.JAnnotatable;
 import com.sun.codemodel.JAnnotationUse;
 import com.sun.codemodel.JCodeModel;
 import com.sun.codemodel.JDefinedClass;
 import com.sun.codemodel.JMethod;
+import com.sun.codemodel.JPackage;
 import com.sun.codemodel.writer.SingleStreamCodeWriter;
 import org.apache.commons.io.IOUtils;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
 import javax.lang.model.element.Element;
+import javax.lang.model.element.ExecutableElement;
+import javax.tools.JavaFileObject;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
 import java.lang.annotation.Annotation;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @ExtendWith(ToolsExtension.class)
 @Introspect
 public class VersionedAnnotationProcessorTest {
 
     private static final String CASE_SAMPLE_CLASS = "SAMPLE_CLASS";
+    private static final String CASE_DUPLICATED_ENDPOINT_CLASS = "DUPLICATED_ENDPOINT_CLASS";
 
     @VersionedPath(sinceVersion = "1.0", path = "/api/$version/")
     @Case(CASE_SAMPLE_CLASS)
@@ -72,6 +88,27 @@ public class VersionedAnnotationProcessorTest {
 
     }
 
+    @VersionedPath(sinceVersion = "1.0", path = "/api/$version/")
+    @Case(CASE_DUPLICATED_ENDPOINT_CLASS)
+    class DuplicatedEndpoint {
+
+        @VersionedPath(sinceVersion = "1.0", path = "stuff")
+        public int v1Stuff() {
+            return 1;
+        }
+
+        @VersionedPath(sinceVersion = "2.0", path = "stuff")
+        public int v2Stuff() {
+            return 2;
+        }
+
+        @VersionedPath(sinceVersion = "2.0", path = "stuff")
+        public int otherV2Stuff() {
+            return 2;
+        }
+
+    }
+
     @Test
     public void classWithMultipleVersionsTest(Cases cases) throws IOException {
         JCodeModel codeModel = new JCodeModel();
@@ -162,6 +199,369 @@ public class VersionedAnnotationProcessorTest {
         assertEquals(IOUtils.toString(getClass().getResourceAsStream("/source/SampleClass")), result);
     }
 
+    @Test
+    public void generatedClassesAreTiedToTheirOriginatingElementTest(Cases cases) {
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.init(new JCodeModel(), Tools.elements(), Tools.messager(), Tools.filer(), Tools.types());
+
+        Element element = cases.one(CASE_SAMPLE_CLASS);
+        assertNotNull(element);
+
+        List<JDefinedClass> createdClasses = versionedAnnotationProcessor.processClass(element);
+        Map<String, Element> originatingElements = versionedAnnotationProcessor.getOriginatingElements();
+
+        assertEquals(createdClasses.size(), originatingElements.size());
+        for (JDefinedClass createdClass : createdClasses) {
+            assertEquals(element, originatingElements.get(createdClass.fullName()));
+        }
+    }
+
+    @Test
+    public void aggregatingWithTheRoutesOrTheReportTest() {
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        assertTrue(versionedAnnotationProcessor.getSupportedOptions().contains(VersionedAnnotationProcessor.GRADLE_ISOLATING_OPTION));
+        assertFalse(versionedAnnotationProcessor.getSupportedOptions().contains(VersionedAnnotationProcessor.GRADLE_AGGREGATING_OPTION));
+
+        versionedAnnotationProcessor.setRouteFilter(true);
+        assertTrue(versionedAnnotationProcessor.getSupportedOptions().contains(VersionedAnnotationProcessor.GRADLE_AGGREGATING_OPTION));
+        assertFalse(versionedAnnotationProcessor.getSupportedOptions().contains(VersionedAnnotationProcessor.GRADLE_ISOLATING_OPTION));
+
+        versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.setReport(new ProcessingReport("codemodel"));
+        assertTrue(versionedAnnotationProcessor.getSupportedOptions().contains(VersionedAnnotationProcessor.GRADLE_AGGREGATING_OPTION));
+    }
+
+    @Test
+    public void duplicatedEndpointTest(Cases cases) {
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.init(new JCodeModel(), Tools.elements(), Tools.messager(), Tools.filer(), Tools.types());
+
+        Element element = cases.one(CASE_DUPLICATED_ENDPOINT_CLASS);
+        assertNotNull(element);
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> versionedAnnotationProcessor.processClass(element));
+        assertEquals("Multiple methods for the same endpoint/version: GET_stuff", exception.getMessage());
+    }
+
+    @Test
+    public void templateBackendWritesTheCodeModelSourcesTest(Cases cases) throws IOException {
+        JCodeModel codeModel = new JCodeModel();
+        VersionedAnnotationProcessor versionedAnnotationProcessor = new VersionedAnnotationProcessor();
+        versionedAnnotationProcessor.init(codeModel, Tools.elements(), Tools.messager(), Tools.filer(), Tools.types());
+
+        Element element = cases.one(CASE_SAMPLE_CLASS);
+        Version version = Version.parse("3.1");
+        List<VersionedEndpoint> endpoints = element.getEnclosedElements()
+                .stream()
+                .filter(enclosed -> enclosed instanceof ExecutableElement)
+                .map(enclosed -> VersionedEndpoint.of((ExecutableElement) enclosed, Version.parse("1.0")))
+                .filter(endpoint -> endpoint != null)
+                .toList();
+
+        String name = "ga.josejulio.versioned.path.VersionedAnnotationProcessorTest_SampleV3_1";
+        versionedAnnotationProcessor.createCodeModelClass(name, element, "/api/$version/", List.of(version), endpoints);
+        ByteArrayOutputStream codeModelSource = new ByteArrayOutputStream();
+        codeModel.build(new CodeWriter() {
+            @Override
+            public OutputStream openBinary(JPackage jPackage, String fileName) {
+                return codeModelSource;
+            }
+
+            @Override
+            public void close() {
+            }
+        });
+
+        ByteArrayOutputStream templateSource = new ByteArrayOutputStream();
+        try (Writer writer = TemplateClassWriter.openSource(templateSource)) {
+            versionedAnnotationProcessor.createTemplateClass(name, element, "/api/$version/", List.of(version), endpoints).write(writer);
+        }
+
+        assertEquals(codeModelSource.toString(), templateSource.toString());
+        assertArrayEquals(codeModelSource.toByteArray(), templateSource.toByteArray());
+    }
+
+    @Test
+    public void collectMethodsForVersionsKeepsDeclarationOrderTest() {
+        List<VersionedEndpoint> endpoints = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            // Every endpoint is replaced in the next version, starting from the last declared one
+            Version sinceVersion = Version.of(1, 20 - i, 0);
+            endpoints.add(new VersionedEndpoint(null, Version.of(1, 0, 0), null, VersionedMethod.HttpMethod.GET, "path" + i, "GET_path" + i));
+            endpoints.add(new VersionedEndpoint(null, sinceVersion, null, VersionedMethod.HttpMethod.GET, "path" + i, "GET_path" + i));
+        }
+
+        Set<Version> versions = new HashSet<>();
+        for (VersionedEndpoint endpoint: endpoints) {
+            versions.add(endpoint.sinceVersion());
+        }
+
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = VersionedAnnotationProcessor.collectMethodsForVersions(endpoints, versions);
+
+        assertEquals(versions.stream().sorted().toList(), List.copyOf(endpointsByVersion.keySet()));
+        for (List<VersionedEndpoint> versionEndpoints: endpointsByVersion.values()) {
+            assertEquals(20, versionEndpoints.size());
+            for (int i = 0; i < versionEndpoints.size(); i++) {
+                assertEquals("path" + i, versionEndpoints.get(i).path());
+            }
+        }
+
+        // The last version has every replacement, still in declaration order
+        List<VersionedEndpoint> lastVersionEndpoints = endpointsByVersion.get(Version.of(1, 20, 0));
+        for (int i = 0; i < lastVersionEndpoints.size(); i++) {
+            assertEquals(endpoints.get(i * 2 + 1), lastVersionEndpoints.get(i));
+        }
+    }
+
+    @Test
+    public void groupVersionsTest() {
+        VersionedEndpoint a = new VersionedEndpoint(null, Version.parse("1.0"), null, VersionedMethod.HttpMethod.GET, "a", "GET_a");
+        VersionedEndpoint b = new VersionedEndpoint(null, Version.parse("1.2"), null, VersionedMethod.HttpMethod.GET, "b", "GET_b");
+        // Removed when it was already replaced, 1.3 has the same endpoints as 1.2
+        VersionedEndpoint c = new VersionedEndpoint(null, Version.parse("1.0"), Version.parse("1.3"), VersionedMethod.HttpMethod.GET, "c", "GET_c");
+        VersionedEndpoint newC = new VersionedEndpoint(null, Version.parse("1.1"), null, VersionedMethod.HttpMethod.GET, "c", "GET_c");
+        List<VersionedEndpoint> endpoints = List.of(a, b, c, newC);
+        List<Version> versions = List.of(Version.parse("1.0"), Version.parse("1.1"), Version.parse("1.2"), Version.parse("1.3"), Version.parse("1.4"));
+
+        Map<Version, List<VersionedEndpoint>> endpointsByVersion = VersionedAnnotationProcessor.collectMethodsForVersions(endpoints, versions);
+
+        Map<List<Version>, List<VersionedEndpoint>> groups = VersionedAnnotationProcessor.groupVersions(endpointsByVersion, null);
+        assertEquals(List.of(versions.subList(0, 1), versions.subList(1, 2), versions.subList(2, 5)), List.copyOf(groups.keySet()));
+        assertEquals(List.of(a, b, newC), groups.get(versions.subList(2, 5)));
+
+        groups = VersionedAnnotationProcessor.groupVersions(endpointsByVersion, VersionRange.parse(">=1.3"));
+        assertEquals(List.of(versions.subList(3, 5)), List.copyOf(groups.keySet()));
+
+        assertEquals("/api/v{version:1\\.2|1\\.3|1\\.4}/pets", VersionedAnnotationProcessor.toPath("/api/v$version/pets", versions.subList(2, 5)));
+        assertEquals("/api/v1.2/pets", VersionedAnnotationProcessor.toPath("/api/v$version/pets", List.of(Version.parse("1.2"), Version.parse("1.2.1"))));
+
+        // An endpoint with its own $version needs a class per version
+        VersionedEndpoint versionedPathEndpoint = new VersionedEndpoint(null, Version.parse("1.0"), null, VersionedMethod.HttpMethod.GET, "d/$version", "GET_d/$version");
+        endpointsByVersion = VersionedAnnotationProcessor.collectMethodsForVersions(List.of(a, versionedPathEndpoint), versions);
+        assertEquals(versions.size(), VersionedAnnotationProcessor.groupVersions(endpointsByVersion, null).size());
+    }
+
+    @Test
+    public void includedVersionsTest() {
+        List<JavaFileObject> sources = SyntheticSources.generate(2, new SyntheticSources.Shape(8, 4, 1, 0));
+
+        Map<String, byte[]> outputs = InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.INCLUDE_OPTION + "=>=1.2"),
+                new VersionedAnnotationProcessor()
+        );
+
+        List<String> generatedSources = outputs.keySet()
+                .stream()
+                .filter(path -> path.startsWith("SOURCE_OUTPUT/"))
+                .sorted()
+                .toList();
+        assertEquals(List.of(
+                "SOURCE_OUTPUT/synthetic/Resource0V1_2.java",
+                "SOURCE_OUTPUT/synthetic/Resource0V1_3.java",
+                "SOURCE_OUTPUT/synthetic/Resource1V1_2.java",
+                "SOURCE_OUTPUT/synthetic/Resource1V1_3.java"
+        ), generatedSources);
+
+        // Same as when every version is generated
+        Map<String, byte[]> allOutputs = InMemoryCompiler.compile(sources, List.of(), new VersionedAnnotationProcessor());
+        for (String generatedSource: generatedSources) {
+            assertArrayEquals(allOutputs.get(generatedSource), outputs.get(generatedSource), generatedSource);
+        }
+
+        assertThrows(IllegalStateException.class, () -> InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.INCLUDE_OPTION + "=>=1.x"),
+                new VersionedAnnotationProcessor()
+        ));
+    }
+
+    @Test
+    public void removedInVersionTest() {
+        JavaFileObject source = SyntheticSources.source("Removed", """
+                package synthetic;
+
+                import ga.josejulio.versioned.path.VersionedMethod;
+                import ga.josejulio.versioned.path.VersionedPath;
+
+                @VersionedPath(path = "/api/v$version/removed", sinceVersion = "1.0", removedInVersion = "4.0")
+                public class Removed {
+                    @VersionedPath(path = "a", sinceVersion = "1.0", removedInVersion = "2.0")
+                    public String a() { return "a"; }
+
+                    @VersionedPath(path = "b", sinceVersion = "1.0")
+                    public String b() { return "b"; }
+
+                    @VersionedPath(path = "b", sinceVersion = "3.0", removedInVersion = "3.5")
+                    public String b3() { return "b3"; }
+
+                    @VersionedPath(path = "c", sinceVersion = "5.0")
+                    public String c() { return "c"; }
+                }
+                """);
+
+        Map<String, byte[]> outputs = InMemoryCompiler.compile(List.of(source), List.of(), new VersionedAnnotationProcessor());
+
+        // 2.0 and 3.5 only remove endpoints, nothing from 4.0 on
+        assertEquals(List.of(
+                "SOURCE_OUTPUT/synthetic/RemovedV1_0.java",
+                "SOURCE_OUTPUT/synthetic/RemovedV2_0.java",
+                "SOURCE_OUTPUT/synthetic/RemovedV3_0.java",
+                "SOURCE_OUTPUT/synthetic/RemovedV3_5.java"
+        ), outputs.keySet().stream().filter(path -> path.startsWith("SOURCE_OUTPUT/")).sorted().toList());
+
+        String v1 = new String(outputs.get("SOURCE_OUTPUT/synthetic/RemovedV1_0.java"), StandardCharsets.UTF_8);
+        String v2 = new String(outputs.get("SOURCE_OUTPUT/synthetic/RemovedV2_0.java"), StandardCharsets.UTF_8);
+        String v3 = new String(outputs.get("SOURCE_OUTPUT/synthetic/RemovedV3_0.java"), StandardCharsets.UTF_8);
+        String v35 = new String(outputs.get("SOURCE_OUTPUT/synthetic/RemovedV3_5.java"), StandardCharsets.UTF_8);
+        assertTrue(v1.contains(" a()") && v1.contains(" b()"), v1);
+        assertTrue(!v2.contains(" a()") && v2.contains(" b()"), v2);
+        assertTrue(v3.contains(" b3()") && !v3.contains(" b()"), v3);
+        // The replaced endpoint doesn't come back
+        assertTrue(!v35.contains(" b3()") && !v35.contains(" b()"), v35);
+
+        JavaFileObject invalid = SyntheticSources.source("Invalid", """
+                package synthetic;
+
+                import ga.josejulio.versioned.path.VersionedPath;
+
+                @VersionedPath(path = "/api/v$version/invalid", sinceVersion = "2.0", removedInVersion = "2.0")
+                public class Invalid {
+                }
+                """);
+        assertThrows(IllegalStateException.class, () -> InMemoryCompiler.compile(List.of(invalid), List.of(), new VersionedAnnotationProcessor()));
+    }
+
+    @Test
+    public void dispatcherStrategyTest() throws ReflectiveOperationException {
+        JavaFileObject source = SyntheticSources.source("Dispatched", """
+                package synthetic;
+
+                import ga.josejulio.versioned.path.VersionedMethod;
+                import ga.josejulio.versioned.path.VersionedPath;
+                import jakarta.ws.rs.QueryParam;
+
+                @VersionedPath(path = "/api/v$version/dispatched", sinceVersion = "1.0")
+                public class Dispatched {
+                    @VersionedPath(path = "a", sinceVersion = "1.0")
+                    public String a(@QueryParam("name") String name) { return "a1 " + name; }
+
+                    @VersionedPath(path = "a", sinceVersion = "2.0")
+                    public String a2(@QueryParam("name") String name) { return "a2 " + name; }
+
+                    @VersionedPath(path = "b", sinceVersion = "2.0", removedInVersion = "3.1")
+                    @VersionedMethod(VersionedMethod.HttpMethod.POST)
+                    public void b() { }
+                }
+                """);
+
+        Map<String, byte[]> outputs = InMemoryCompiler.compile(
+                List.of(source),
+                List.of(VersionedAnnotationProcessor.STRATEGY_OPTION + "=dispatcher"),
+                new VersionedAnnotationProcessor()
+        );
+
+        assertEquals(
+                List.of("SOURCE_OUTPUT/synthetic/DispatchedDispatcher.java"),
+                outputs.keySet().stream().filter(path -> path.startsWith("SOURCE_OUTPUT/")).toList()
+        );
+
+        String dispatcherSource = new String(outputs.get("SOURCE_OUTPUT/synthetic/DispatchedDispatcher.java"), StandardCharsets.UTF_8);
+        assertTrue(dispatcherSource.contains("@Path(\"/api/v{version:1\\\\.0|2\\\\.0|3\\\\.1}/dispatched\")"), dispatcherSource);
+
+        Class<?> dispatcherClass = new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            protected Class<?> findClass(String name) throws ClassNotFoundException {
+                byte[] bytes = outputs.get("CLASS_OUTPUT/" + name.replace('.', '/') + ".class");
+                if (bytes == null) {
+                    throw new ClassNotFoundException(name);
+                }
+
+                return defineClass(name, bytes, 0, bytes.length);
+            }
+        }.loadClass("synthetic.DispatchedDispatcher");
+
+        Object dispatcher = dispatcherClass.getConstructor().newInstance();
+        java.lang.reflect.Method dispatchA = dispatcherClass.getMethod("dispatchA2", String.class, String.class);
+        assertEquals("a1 x", dispatchA.invoke(dispatcher, "1.0", "x"));
+        assertEquals("a2 x", dispatchA.invoke(dispatcher, "2.0", "x"));
+        assertEquals("a2 x", dispatchA.invoke(dispatcher, "3.1", "x"));
+
+        java.lang.reflect.Method dispatchB = dispatcherClass.getMethod("dispatchB", String.class);
+        assertEquals(void.class, dispatchB.getReturnType());
+        dispatchB.invoke(dispatcher, "2.0");
+        // Not found, even without a JAX-RS implementation to build the response
+        assertThrows(java.lang.reflect.InvocationTargetException.class, () -> dispatchB.invoke(dispatcher, "1.0"));
+        assertThrows(java.lang.reflect.InvocationTargetException.class, () -> dispatchB.invoke(dispatcher, "3.1"));
+        assertThrows(java.lang.reflect.InvocationTargetException.class, () -> dispatchA.invoke(dispatcher, "1.5", "x"));
+
+        assertThrows(IllegalStateException.class, () -> InMemoryCompiler.compile(
+                List.of(source),
+                List.of(VersionedAnnotationProcessor.STRATEGY_OPTION + "=dispatcher", VersionedAnnotationProcessor.BACKEND_OPTION + "=template"),
+                new VersionedAnnotationProcessor()
+        ));
+    }
+
+    @Test
+    public void routesTest() throws ReflectiveOperationException {
+        List<JavaFileObject> sources = SyntheticSources.generate(2, new SyntheticSources.Shape(4, 2, 1, 0));
+        Map<String, byte[]> outputs = InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.ROUTES_OPTION + "=true"),
+                new VersionedAnnotationProcessor()
+        );
+
+        byte[] bytes = outputs.get("CLASS_OUTPUT/synthetic/" + VersionedAnnotationProcessor.ROUTES_CLASS_NAME + ".class");
+        assertNotNull(bytes, outputs.keySet().toString());
+        Class<?> routesClass = new ClassLoader(getClass().getClassLoader()) {
+            Class<?> define() {
+                return defineClass("synthetic." + VersionedAnnotationProcessor.ROUTES_CLASS_NAME, bytes, 0, bytes.length);
+            }
+        }.define();
+
+        RouteTable routes = (RouteTable) routesClass.getField("ROUTES").get(null);
+        // Two versions of both resources, every version with 2 of the 4 methods
+        assertEquals(8, routes.size());
+        assertEquals(List.of(Version.parse(SyntheticSources.version(0)), Version.parse(SyntheticSources.version(1))), routes.versions());
+
+        for (int i = 0; i < routes.size(); i++) {
+            assertEquals(i, routes.resolve(routes.httpMethod(i), routes.path(i), routes.version(i)));
+            assertTrue(routes.path(i).contains("/v" + routes.version(i).toMinorVersionString() + "/"), routes.path(i));
+            assertTrue(routes.method(i).startsWith(SyntheticSources.qualifiedClassName(0) + "#") || routes.method(i).startsWith(SyntheticSources.qualifiedClassName(1) + "#"), routes.method(i));
+        }
+
+        // Nothing without the option
+        assertEquals(-1, String.join(",", InMemoryCompiler.compile(sources, List.of(), new VersionedAnnotationProcessor()).keySet()).indexOf(VersionedAnnotationProcessor.ROUTES_CLASS_NAME));
+
+        // The filter implies the routes
+        Map<String, byte[]> filterOutputs = InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.ROUTE_FILTER_OPTION + "=true"),
+                new VersionedAnnotationProcessor()
+        );
+        assertNotNull(filterOutputs.get("CLASS_OUTPUT/synthetic/" + VersionedAnnotationProcessor.ROUTES_CLASS_NAME + ".class"), filterOutputs.keySet().toString());
+        assertNotNull(filterOutputs.get("CLASS_OUTPUT/synthetic/" + VersionedAnnotationProcessor.ROUTE_FILTER_CLASS_NAME + ".class"), filterOutputs.keySet().toString());
+    }
+
+    @Test
+    public void threadsWriteTheSameSourcesTest() {
+        List<JavaFileObject> sources = SyntheticSources.generate(6, new SyntheticSources.Shape(8, 3, 2, 1));
+
+        Map<String, byte[]> singleThreadOutputs = InMemoryCompiler.compile(sources, List.of(), new VersionedAnnotationProcessor());
+        Map<String, byte[]> multiThreadOutputs = InMemoryCompiler.compile(
+                sources,
+                List.of(VersionedAnnotationProcessor.THREADS_OPTION + "=4"),
+                new VersionedAnnotationProcessor()
+        );
+
+        assertEquals(singleThreadOutputs.keySet(), multiThreadOutputs.keySet());
+        for (Map.Entry<String, byte[]> output: singleThreadOutputs.entrySet()) {
+            if (output.getKey().startsWith("SOURCE_OUTPUT/")) {
+                assertArrayEquals(output.getValue(), multiThreadOutputs.get(output.getKey()), output.getKey());
+            }
+        }
+    }
+
     private JDefinedClass getClassNamed(Collection<JDefinedClass> classList, String name) {
         return classList
                 .stream()
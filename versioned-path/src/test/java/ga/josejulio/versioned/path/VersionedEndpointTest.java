@@ -0,0 +1,63 @@
+package ga.josejulio.versioned.path;
+
+import com.karuslabs.elementary.junit.Cases;
+import com.karuslabs.elementary.junit.ToolsExtension;
+import com.karuslabs.elementary.junit.annotations.Case;
+import com.karuslabs.elementary.junit.annotations.Introspect;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import javax.lang.model.element.ExecutableElement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(ToolsExtension.class)
+@Introspect
+public class VersionedEndpointTest {
+
+    private static final String CASE_PATH_METHOD = "PATH_METHOD";
+    private static final String CASE_HTTP_METHOD = "HTTP_METHOD";
+    private static final String CASE_PLAIN_METHOD = "PLAIN_METHOD";
+
+    class Endpoints {
+        @VersionedPath(sinceVersion = "2.1", removedInVersion = "3.0", path = "stuff/$version")
+        @VersionedMethod(VersionedMethod.HttpMethod.PUT)
+        @Case(CASE_PATH_METHOD)
+        public int stuff() {
+            return 1;
+        }
+
+        @VersionedMethod(VersionedMethod.HttpMethod.POST)
+        @Case(CASE_HTTP_METHOD)
+        public int post() {
+            return 2;
+        }
+
+        @Case(CASE_PLAIN_METHOD)
+        public int plain() {
+            return 3;
+        }
+    }
+
+    @Test
+    public void ofTest(Cases cases) {
+        Version classVersion = Version.parse("1.0");
+
+        VersionedEndpoint endpoint = VersionedEndpoint.of((ExecutableElement) cases.one(CASE_PATH_METHOD), classVersion);
+        assertEquals(Version.parse("2.1"), endpoint.sinceVersion());
+        assertEquals(Version.parse("3.0"), endpoint.removedInVersion());
+        assertEquals(VersionedMethod.HttpMethod.PUT, endpoint.httpMethod());
+        assertEquals("stuff/$version", endpoint.path());
+        assertEquals("PUT_stuff/$version", endpoint.key());
+
+        endpoint = VersionedEndpoint.of((ExecutableElement) cases.one(CASE_HTTP_METHOD), classVersion);
+        assertEquals(classVersion, endpoint.sinceVersion());
+        assertNull(endpoint.removedInVersion());
+        assertEquals(VersionedMethod.HttpMethod.POST, endpoint.httpMethod());
+        assertNull(endpoint.path());
+        assertEquals("POST_", endpoint.key());
+
+        assertNull(VersionedEndpoint.of((ExecutableElement) cases.one(CASE_PLAIN_METHOD), classVersion));
+    }
+}